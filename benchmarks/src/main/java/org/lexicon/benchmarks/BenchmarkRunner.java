@@ -0,0 +1,25 @@
+package org.lexicon.benchmarks;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks like the JMH launcher, adding the GC profiler for the
+ * allocation rate unless other profilers are given with <code>-prof</code>.
+ * <code>-h</code> lists the other options.
+ */
+public class BenchmarkRunner {
+
+    // static methods only
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        if (!Arrays.asList(args).contains("-prof")) {
+            args = Arrays.copyOf(args, args.length + 2);
+            args[args.length - 2] = "-prof";
+            args[args.length - 1] = "gc";
+        }
+        Main.main(args);
+    }
+}
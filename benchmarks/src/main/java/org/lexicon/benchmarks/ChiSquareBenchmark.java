@@ -0,0 +1,64 @@
+package org.lexicon.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.lexicon.ExtractionScheme;
+import org.lexicon.NaiveBayesClassifier;
+import org.lexicon.data.Document;
+import org.lexicon.process.ChiSquare;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feature selection over a tokenized document and over a trained model
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChiSquareBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int corpusSize;
+
+    private Document document;
+    private NaiveBayesClassifier classifier;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticCorpus.loadEnglishDictionary();
+
+        document = new SyntheticCorpus(42, corpusSize / 10).createDocument(corpusSize);
+        document.getTokenizedCorpus();
+        classifier = new NaiveBayesClassifier();
+        classifier.train(document, ExtractionScheme.TO);
+    }
+
+    @Benchmark
+    public Map<String, Double> selectFromDocument() {
+        return new ChiSquare().selectFeatures(document);
+    }
+
+    @Benchmark
+    public double[] scoreDocument() {
+        return new ChiSquare().scoreFeatures(document);
+    }
+
+    @Benchmark
+    public Map<String, Double> selectFromModel() {
+        return new ChiSquare().selectFeatures(classifier);
+    }
+}
@@ -0,0 +1,89 @@
+package org.lexicon.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lexicon.ExtractionScheme;
+import org.lexicon.NaiveBayesClassifier;
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.data.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Training the classifier, with and without preprocessing the sentences, and
+ * scoring a fixed set of test sentences with the trained model
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    private static final int TEST_SIZE = 1000;
+
+    @Param({ "1000", "10000", "100000" })
+    public int corpusSize;
+
+    @Param({ "TO", "TFIDF" })
+    public ExtractionScheme extractionScheme;
+
+    private List<AnnotatedText> sentences;
+    private Document document;
+    private NaiveBayesClassifier classifier;
+    private String[] testSentences;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticCorpus.loadEnglishDictionary();
+
+        SyntheticCorpus corpus = new SyntheticCorpus(42, corpusSize / 10);
+        sentences = corpus.createSentences(corpusSize);
+        document = new Document(sentences, false);
+        classifier = new NaiveBayesClassifier();
+        classifier.train(document, extractionScheme);
+
+        List<AnnotatedText> test = corpus.createSentences(TEST_SIZE);
+        testSentences = new String[test.size()];
+        for (int i = 0; i < testSentences.length; i++) {
+            testSentences[i] = test.get(i).getText();
+        }
+    }
+
+    /**
+     * Includes preprocessing, as a new document tokenizes its sentences again
+     */
+    @Benchmark
+    public NaiveBayesClassifier train() {
+        NaiveBayesClassifier newClassifier = new NaiveBayesClassifier();
+        newClassifier.train(new Document(sentences, false), extractionScheme);
+        return newClassifier;
+    }
+
+    @Benchmark
+    public NaiveBayesClassifier trainTokenized() {
+        NaiveBayesClassifier newClassifier = new NaiveBayesClassifier();
+        newClassifier.train(document, extractionScheme);
+        return newClassifier;
+    }
+
+    @Benchmark
+    public void predict(Blackhole blackhole) {
+        for (String sentence : testSentences) {
+            blackhole.consume(classifier.predict(sentence));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.lexicon.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.process.CebuanoNormalizer;
+import org.lexicon.process.DataProcessor;
+import org.lexicon.process.Tokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Preprocessing of a whole corpus: tokenizing, normalizing the words and the
+ * full {@link DataProcessor#preprocess(String)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreprocessBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int corpusSize;
+
+    private String[] sentences;
+    private String[] words;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticCorpus.loadEnglishDictionary();
+
+        SyntheticCorpus corpus = new SyntheticCorpus(42, corpusSize / 10);
+        List<AnnotatedText> annotated = corpus.createSentences(corpusSize);
+        sentences = new String[annotated.size()];
+        for (int i = 0; i < sentences.length; i++) {
+            sentences[i] = annotated.get(i).getText();
+        }
+        words = Tokenizer.tokenize(String.join(" ", sentences).toLowerCase()).toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole blackhole) {
+        for (String sentence : sentences) {
+            Tokenizer.scan(sentence, (text, start, end) -> blackhole.consume(end - start));
+        }
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        for (String word : words) {
+            blackhole.consume(CebuanoNormalizer.normalize(word));
+        }
+    }
+
+    @Benchmark
+    public void preprocess(Blackhole blackhole) {
+        for (String sentence : sentences) {
+            blackhole.consume(DataProcessor.preprocess(sentence));
+        }
+    }
+}
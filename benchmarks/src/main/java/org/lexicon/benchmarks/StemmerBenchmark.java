@@ -0,0 +1,63 @@
+package org.lexicon.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lexicon.process.stemmer.CebuanoStemmer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link CebuanoStemmer#getRootWord(String)} over a list of inflected words,
+ * with an empty root cache before each call (cold) or a filled one (warm)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StemmerBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int wordCount;
+
+    @Param({ "cold", "warm" })
+    public String cache;
+
+    private List<String> words;
+
+    @Setup
+    public void setUp() {
+        words = new SyntheticCorpus(42, wordCount / 10).createWords(wordCount);
+        getRootWords(null);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        if (cache.equals("cold")) {
+            CebuanoStemmer.getRootCache().clear();
+        }
+    }
+
+    @Benchmark
+    public void getRootWords(Blackhole blackhole) {
+        for (String word : words) {
+            String root = CebuanoStemmer.getRootWord(word);
+            if (blackhole != null) {
+                blackhole.consume(root);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.lexicon.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.lexicon.Sentiment;
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.data.Document;
+import org.lexicon.process.dictionary.EnglishDictionary;
+import org.lexicon.util.ClassLoaderUtil;
+import org.lexicon.util.ResourceUtil;
+
+/**
+ * Generates Cebuano sentences mixed with English words, so the benchmarks run
+ * without the document workbook. Words follow a Zipf distribution, and each
+ * category prefers its own part of the vocabulary. The same seed always gives
+ * the same corpus.
+ */
+public class SyntheticCorpus {
+
+    private static final String[] POSITIVE_ROOTS = { "lipay", "nindot", "gwapa", "maayo", "salamat", "gugma",
+            "kalipay", "malipayon", "bilib", "sulti", "buotan", "hayag" };
+    private static final String[] NEGATIVE_ROOTS = { "subo", "pangit", "kasuko", "yawa", "lagot", "luod",
+            "sakit", "hilak", "kapoy", "bugo", "dautan", "kulbaan" };
+    private static final String[] NEUTRAL_ROOTS = { "balay", "kaon", "adto", "lakaw", "tan-aw", "ugma", "karon",
+            "tubig", "dalan", "eskwela", "trabaho", "simbahan" };
+    private static final String[] STOP_WORDS = { "ang", "sa", "nga", "ug", "si", "ni", "kay", "man", "ra", "na",
+            "pa", "ko", "ka", "siya", "kami", "ako" };
+
+    private static final String[] PREFIXES = { "", "", "", "mag", "nag", "gi", "ka", "pag", "ma", "na", "mo",
+            "nakig", "gipa" };
+    private static final String[] SUFFIXES = { "", "", "", "on", "an", "a", "hon", "han", "i" };
+
+    static final String[] ENGLISH_WORDS = { "the", "so", "good", "bad", "very", "movie", "happy", "sad", "love",
+            "hate", "nice", "really", "lol", "haha", "omg", "thanks", "please", "sorry", "best", "worst" };
+
+    private static final String[] SYLLABLES = { "ba", "bu", "da", "di", "ga", "gu", "ha", "hi", "ka", "ku", "la",
+            "li", "ma", "mu", "na", "ni", "pa", "pu", "sa", "si", "ta", "tu", "wa", "ya", "ng", "lan", "kog", "bay" };
+
+    private static final String[] PUNCTUATION = { ".", "!", "?", "!!", "...", ",", "" };
+
+    private final Random random;
+    private final String[][] vocabulary;
+    private final double[] cumulativeWeights;
+
+    /**
+     * @param vocabularySize number of pseudo-roots of each category, on top of
+     *            the common words
+     */
+    public SyntheticCorpus(long seed, int vocabularySize) {
+        random = new Random(seed);
+        Sentiment[] sentiments = Sentiment.values();
+        String[][] roots = { POSITIVE_ROOTS, NEGATIVE_ROOTS, NEUTRAL_ROOTS };
+
+        vocabulary = new String[sentiments.length][];
+        for (int c = 0; c < sentiments.length; c++) {
+            vocabulary[c] = Arrays.copyOf(roots[c], roots[c].length + vocabularySize);
+            for (int i = roots[c].length; i < vocabulary[c].length; i++) {
+                vocabulary[c][i] = createRoot();
+            }
+        }
+
+        cumulativeWeights = new double[vocabulary[0].length];
+        double total = 0;
+        for (int rank = 0; rank < cumulativeWeights.length; rank++) {
+            total += 1 / Math.pow(rank + 1, 1.1);
+            cumulativeWeights[rank] = total;
+        }
+    }
+
+    /**
+     * @return <code>size</code> sentences, cycling through the categories
+     */
+    public List<AnnotatedText> createSentences(int size) {
+        Sentiment[] sentiments = Sentiment.values();
+        List<AnnotatedText> sentences = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Sentiment sentiment = sentiments[i % sentiments.length];
+            sentences.add(new AnnotatedText(createSentence(sentiment), sentiment));
+        }
+        return sentences;
+    }
+
+    public Document createDocument(int size) {
+        return new Document(createSentences(size), false);
+    }
+
+    /**
+     * @return <code>size</code> inflected words, as seen by the stemmer
+     */
+    public List<String> createWords(int size) {
+        List<String> words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            words.add(inflect(nextRoot(Sentiment.values()[i % 3])));
+        }
+        return words;
+    }
+
+    private String createSentence(Sentiment sentiment) {
+        int length = 4 + random.nextInt(16);
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+
+            String word;
+            int kind = random.nextInt(10);
+            if (kind < 3) {
+                word = STOP_WORDS[random.nextInt(STOP_WORDS.length)];
+            }
+            else if (kind < 4) {
+                word = ENGLISH_WORDS[random.nextInt(ENGLISH_WORDS.length)];
+            }
+            else {
+                // Mostly words of the sentence's category, some of the others
+                Sentiment wordSentiment = random.nextInt(4) == 0
+                        ? Sentiment.values()[random.nextInt(3)] : sentiment;
+                word = inflect(nextRoot(wordSentiment));
+            }
+
+            if (random.nextInt(15) == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            if (random.nextInt(25) == 0) {
+                word = elongate(word);
+            }
+            sentence.append(word);
+            if (random.nextInt(8) == 0) {
+                sentence.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            }
+        }
+        sentence.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+        return sentence.toString();
+    }
+
+    private String nextRoot(Sentiment sentiment) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int rank = Arrays.binarySearch(cumulativeWeights, target);
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        return vocabulary[sentiment.ordinal()][Math.min(rank, cumulativeWeights.length - 1)];
+    }
+
+    private String inflect(String root) {
+        return PREFIXES[random.nextInt(PREFIXES.length)] + root + SUFFIXES[random.nextInt(SUFFIXES.length)];
+    }
+
+    // Repeats a vowel, like "nindooot"
+    private String elongate(String word) {
+        for (int i = word.length() - 1; i >= 0; i--) {
+            if ("aeiou".indexOf(word.charAt(i)) >= 0) {
+                return word.substring(0, i + 1) + word.substring(i, i + 1) + word.substring(i);
+            }
+        }
+        return word;
+    }
+
+    private String createRoot() {
+        int syllables = 2 + random.nextInt(2);
+        StringBuilder root = new StringBuilder();
+        for (int i = 0; i < syllables; i++) {
+            root.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return root.toString();
+    }
+
+    /**
+     * Loads the English dictionary, from the generated word list if lexicon was
+     * built without <code>english_words.json</code>
+     */
+    public static void loadEnglishDictionary() throws IOException {
+        if (ClassLoaderUtil.getResource(ResourceUtil.ENGLISH_WORDS_JSON, SyntheticCorpus.class) != null) {
+            EnglishDictionary.isEnglishWord("");
+            return;
+        }
+
+        Path folder = Files.createTempDirectory("lexicon-benchmarks");
+        Path file = folder.resolve(ResourceUtil.ENGLISH_WORDS_JSON);
+        Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("[\"" + String.join("\",\"", ENGLISH_WORDS) + "\"]");
+        }
+
+        // The dictionary is read through the context class loader when first used
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { folder.toUri().toURL() }, contextLoader)) {
+            thread.setContextClassLoader(loader);
+            EnglishDictionary.isEnglishWord("");
+        }
+        finally {
+            thread.setContextClassLoader(contextLoader);
+            Files.delete(file);
+            Files.delete(file.getParent());
+            Files.delete(folder);
+        }
+    }
+}
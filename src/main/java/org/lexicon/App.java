@@ -1,19 +1,23 @@
 package org.lexicon;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.lexicon.data.AnnotatedText;
 import org.lexicon.data.Document;
 import org.lexicon.process.ChiSquare;
+import org.lexicon.process.DataProcessor;
 import org.lexicon.process.DocumentHelper;
+import org.lexicon.process.TestResultWriter;
+import org.lexicon.util.Metrics;
 
 import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.JCommander;
@@ -25,6 +29,15 @@ public class App {
     @Parameter(names = { "--help", "-h" }, help = true)
     private boolean help;
 
+    @Parameter(names = "--metrics", description = "Path for a JSON report of the timings and counters of the run")
+    private String metricsFile;
+
+    @Parameter(names = "--jmx", description = "Publish the timings and counters through JMX while running")
+    private boolean jmx;
+
+    @Parameter(names = "--stem", description = "Reduce words to their root words; use the same setting for training and testing")
+    private boolean stem;
+
     public static void main(String[] args) {
         long start = System.currentTimeMillis();
 
@@ -37,6 +50,8 @@ public class App {
         CommandHappinessTest cHappinessTest = new CommandHappinessTest();
         CommandChiSquareFeatureSelection cChiSquareFeatureSelection = new CommandChiSquareFeatureSelection();
         CommandIntersectionCount cIntersectionCount = new CommandIntersectionCount();
+        CommandConvertModel cConvertModel = new CommandConvertModel();
+        CommandServe cServe = new CommandServe();
         JCommander jc = JCommander
             .newBuilder()
             .addObject(app)
@@ -48,8 +63,14 @@ public class App {
             .addCommand(cHappinessTest)
             .addCommand(cChiSquareFeatureSelection)
             .addCommand(cIntersectionCount)
+            .addCommand(cConvertModel)
+            .addCommand(cServe)
             .build();
         jc.parse(args);
+        if (app.jmx) {
+            Metrics.registerMBean();
+        }
+        DataProcessor.setStemming(app.stem);
 
         if (app.help || jc.getParsedCommand() == null) {
             jc.usage();
@@ -79,6 +100,12 @@ public class App {
             case "intersection-count":
                 intersectionCount(cIntersectionCount);
                 break;
+            case "convert-model":
+                convertModel(cConvertModel);
+                break;
+            case "serve":
+                serve(cServe);
+                break;
             default:
                 jc.usage();
                 break;
@@ -86,6 +113,15 @@ public class App {
 
         long end = System.currentTimeMillis();
         System.out.printf("Program execution: %.2f secs\n", (end - start) / 1000.0);
+
+        if (app.metricsFile != null) {
+            if (Metrics.writeReport(app.metricsFile)) {
+                System.out.println("Metrics saved in: " + app.metricsFile);
+            }
+            else {
+                System.err.println("Problem found when writing: " + app.metricsFile);
+            }
+        }
     }
 
     private static void train(CommandTrain args) {
@@ -93,8 +129,7 @@ public class App {
         if (args.useFeatureSelection) {
             System.out.println("Selecting Features: ");
             trainingDocument.getVocabulary();
-            trainingDocument.useFeatureSelection = true;
-            trainingDocument.invalidateCache();
+            trainingDocument.setUseFeatureSelection(true);
         }
         if (trainingDocument == null) {
             System.err.println("Problem found when reading: " + args.trainDocFile);
@@ -103,7 +138,7 @@ public class App {
 
         BagOfWords bow = new BagOfWords(trainingDocument);
         NaiveBayesClassifier classifier = new NaiveBayesClassifier();
-        classifier.train(trainingDocument, args.extractionScheme);
+        classifier.train(trainingDocument, args.extractionScheme, args.threads);
         System.out.println(classifier.getPriorMap());
 
         System.out.println("Saving model file...");
@@ -138,17 +173,7 @@ public class App {
             return;
         }
 
-        System.out.println("Classifying data...");
-        TestResult testResult = classifier.test(testingDocument);
-
-
-        System.out.println("Writing result file...");
-        if (DocumentHelper.writeTestResult(testResult, args.resultDocFile)) {
-            System.out.println("Test result file saved in: " + args.resultDocFile);
-        }
-        else {
-            System.err.println("Problem found when writing: " + args.resultDocFile);
-        }
+        writeTestResult(args.resultDocFile, listener -> classifier.test(testingDocument, args.threads, listener));
     }
 
     private static void showTopWords(CommandTopWords args) {
@@ -189,16 +214,38 @@ public class App {
         HappinessIndex hi = new HappinessIndex();
         hi.load(args.lexiconFile);
 
-         System.out.println("Classifying data...");
-         TestResult testResult = hi.test(testingDocument, args.levels);
+        writeTestResult(args.resultDocFile, listener -> hi.test(testingDocument, args.levels, args.threads, listener));
+    }
 
-         System.out.println("Writing result file...");
-         if (DocumentHelper.writeTestResult(testResult, args.resultDocFile)) {
-             System.out.println("Test result file saved in: " + args.resultDocFile);
-         }
-         else {
-             System.err.println("Problem found when writing: " + args.resultDocFile);
-         }
+    /**
+     * Writes each prediction to the result file while the test runs, then the
+     * metrics once it is done
+     *
+     * @param test
+     *            Runs the test, passing the predictions to the given listener
+     */
+    private static void writeTestResult(String resultFile,
+            Function<BiConsumer<AnnotatedText, Sentiment>, TestResult> test) {
+        try (TestResultWriter writer = TestResultWriter.open(resultFile)) {
+            System.out.println("Classifying data...");
+            TestResult testResult = test.apply((sentence, prediction) -> {
+                try {
+                    writer.writeRow(sentence, prediction);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            System.out.println("Writing result file...");
+            writer.writeSummary(testResult);
+        }
+        catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+            System.err.println("Problem found when writing: " + resultFile);
+            return;
+        }
+        System.out.println("Test result file saved in: " + resultFile);
     }
 
     private static void chiSquareFeatureSelect(CommandChiSquareFeatureSelection args) {
@@ -212,17 +259,7 @@ public class App {
 
         ChiSquare cs = new ChiSquare();
         Map<String, Double> selectedFeatures = cs.selectFeatures(classifier);
-        Set<String> newVocabulary = new HashSet<>(selectedFeatures.keySet());
-        Map<AnnotatedText, Double> newLikelihoodMap = new HashMap<>();
-
-        for (Map.Entry<AnnotatedText, Double> entry : classifier.getLikelihoodMap().entrySet()) {
-            String word = entry.getKey().getText();
-            if (selectedFeatures.containsKey(word)) {
-                newLikelihoodMap.put(entry.getKey(), entry.getValue());
-            }
-        }
-        classifier.setVocabulary(newVocabulary);
-        classifier.setLikelihoodMap(newLikelihoodMap);
+        classifier.retainFeatures(selectedFeatures.keySet());
 
         System.out.println("Saving model file...");
         if (classifier.writeModel(args.resultModelFile)) {
@@ -238,13 +275,50 @@ public class App {
         if (args.useFeatureSelection) {
             System.out.println("Selecting Features: ");
             document.getVocabulary();
-            document.useFeatureSelection = true;
-            document.invalidateCache();
+            document.setUseFeatureSelection(true);
         }
 
         document.exportIntersectionData(args.resultFile);
     }
 
+    private static void convertModel(CommandConvertModel args) {
+        System.out.println("Converting model...");
+        if (ModelFile.convert(args.modelFile, args.resultModelFile)) {
+            System.out.println("Model file saved in: " + args.resultModelFile);
+        }
+        else {
+            System.err.println("Problem found when converting: " + args.modelFile);
+        }
+    }
+
+    private static void serve(CommandServe args) {
+        System.out.println("Loading model...");
+        NaiveBayesClassifier classifier = NaiveBayesClassifier.loadModel(args.modelFile);
+        if (classifier == null) {
+            System.err.println("Problem found when reading: " + args.modelFile);
+            return;
+        }
+
+        // Load the dictionaries that preprocessing uses before the first request
+        classifier.predict("Maayong buntag sa tanan");
+
+        ScoringServer server = new ScoringServer(classifier::predict, args.threads, args.maxBatchSize,
+                args.maxBodySize);
+        try {
+            InetSocketAddress address = server.start(new InetSocketAddress(args.host, args.port));
+            System.out.println("Listening on http://" + args.host + ":" + address.getPort() + "/classify");
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.awaitStop();
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Problem found when listening on port " + args.port);
+        }
+        catch (InterruptedException e) {
+            server.stop();
+        }
+    }
+
     @Parameters(commandNames = "train", commandDescription = "Train a classifier model")
     private static class CommandTrain {
 
@@ -262,6 +336,9 @@ public class App {
 
         @Parameter(names = { "--feature-selection", "-s" }, description = "Use feature selection", arity = 1)
         private boolean useFeatureSelection = true;
+
+        @Parameter(names = { "--threads", "-t" }, description = "Number of threads used to count sentences")
+        private int threads = BatchTrainer.DEFAULT_THREADS;
     }
 
     @Parameters(commandNames = "test", commandDescription = "Test created model and writes results to an excel file")
@@ -276,8 +353,11 @@ public class App {
         @Parameter(names = { "--bow" }, description = "Bag-of-words model file path; uses this when specified")
         private String bowFile = null;
 
-        @Parameter(names = { "--result", "-r" }, description = "Path for the result file")
+        @Parameter(names = { "--result", "-r" }, description = "Path for the result file; .csv or .tsv writes text files")
         private String resultDocFile = DocumentHelper.DEFAULT_TEST_RESULT_FILE;
+
+        @Parameter(names = { "--threads", "-t" }, description = "Number of threads used to classify sentences")
+        private int threads = BatchTester.DEFAULT_THREADS;
     }
 
     @Parameters(commandNames = "populate", commandDescription = "Populates a Lexicon document using translations file")
@@ -330,11 +410,14 @@ public class App {
         @Parameter(names = { "--lexicon", "-x" }, description = "Lexicon File")
         private String lexiconFile = "./files/Bisaya Lexicon.xls";
 
-        @Parameter(names = { "--result", "-r" }, description = "Path for the result file")
+        @Parameter(names = { "--result", "-r" }, description = "Path for the result file; .csv or .tsv writes text files")
         private String resultDocFile = DocumentHelper.DEFAULT_TEST_RESULT_FILE;
 
         @Parameter(names = "--include-stopwords", description = "Include stop words from frequencies")
         private boolean includeStopWords = false;
+
+        @Parameter(names = { "--threads", "-t" }, description = "Number of threads used to classify sentences")
+        private int threads = BatchTester.DEFAULT_THREADS;
     }
 
     @Parameters(commandNames = "cs-feature-select", commandDescription = "Use ChiSquare method to select features from a model")
@@ -357,11 +440,43 @@ public class App {
         @Parameter(names = { "--feature-selection", "-s" }, description = "Use feature selection", arity = 1)
         private boolean useFeatureSelection = true;
 
-        @Parameter(names = { "--result", "-r" }, description = "Path for the result file")
+        @Parameter(names = { "--result", "-r" }, description = "Path for the result file; .csv or .tsv writes text files")
         private String resultFile = "./files/IntersectionData.xlsx";
 
     }
 
+    @Parameters(commandNames = "convert-model", commandDescription = "Convert a model saved by older versions to the current model file format")
+    private static class CommandConvertModel {
+
+        @Parameter(names = { "--model", "-m" }, description = "Model file to convert", required = true)
+        private String modelFile;
+
+        @Parameter(names = { "--result", "-r" }, description = "Output for the converted model")
+        private String resultModelFile = NaiveBayesClassifier.DEFAULT_MODEL_FILE;
+    }
+
+    @Parameters(commandNames = "serve", commandDescription = "Classifies sentences over HTTP, one sentence per line")
+    private static class CommandServe {
+
+        @Parameter(names = { "--model", "-m" }, description = "Classifier model file to use")
+        private String modelFile = NaiveBayesClassifier.DEFAULT_MODEL_FILE;
+
+        @Parameter(names = "--host", description = "Address to listen on")
+        private String host = "localhost";
+
+        @Parameter(names = { "--port", "-p" }, description = "Port to listen on")
+        private int port = ScoringServer.DEFAULT_PORT;
+
+        @Parameter(names = { "--threads", "-t" }, description = "Number of threads used to classify requests")
+        private int threads = BatchTester.DEFAULT_THREADS;
+
+        @Parameter(names = "--max-batch", description = "Maximum number of sentences per request")
+        private int maxBatchSize = ScoringServer.DEFAULT_MAX_BATCH_SIZE;
+
+        @Parameter(names = "--max-body", description = "Maximum size of a request in bytes")
+        private int maxBodySize = ScoringServer.DEFAULT_MAX_BODY_SIZE;
+    }
+
     public static class IntegerListConverter implements IStringConverter<List<Integer>> {
         @Override
         public List<Integer> convert(String str) {
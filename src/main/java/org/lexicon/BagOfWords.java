@@ -1,33 +1,21 @@
 package org.lexicon;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
-import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.lexicon.data.AnnotatedText;
 import org.lexicon.data.Document;
-import org.lexicon.process.DataProcessor;
-import org.lexicon.util.WorkbookUtil;
+import org.lexicon.data.TokenizedCorpus;
+import org.lexicon.util.SheetReader;
+import org.lexicon.util.TableWriter;
 
 public class BagOfWords {
-    public static final String DEFAULT_EXCEL_NAME = "./files/BOW.xls";
+    public static final String DEFAULT_EXCEL_NAME = "./files/BOW.xlsx";
     private static final int WORD_COLUMN = 0;
     private static final int POSITIVE_COUNT_COLUMN = 1;
     private static final int POSITIVE_LIKELIHOOD_COLUMN = 2;
@@ -43,10 +31,10 @@ public class BagOfWords {
     private Map<Sentiment, Integer> sentencesBySentimentCountMap = new EnumMap<>(Sentiment.class);
 
     public BagOfWords(Document document) {
-        List<AnnotatedText> sentences = document.getData();
-        for (AnnotatedText sentence : sentences) {
-            Sentiment sentiment = sentence.getCategory();
-            for (String word : DataProcessor.preprocess(sentence.getText())) {
+        TokenizedCorpus corpus = document.getTokenizedCorpus();
+        for (int i = 0; i < corpus.size(); i++) {
+            Sentiment sentiment = corpus.getCategory(i);
+            for (String word : corpus.getWords(i)) {
                 if (!wordCountMap.containsKey(word)) {
                     wordCountMap.put(word, createCountMap(0, 0, 0));
                 }
@@ -60,46 +48,83 @@ public class BagOfWords {
         calculateLikelihood();
     }
 
-    public BagOfWords(String bowDocumentPath) throws EncryptedDocumentException, InvalidFormatException, IOException {
+    /**
+     * Reads a file written by {@link #writeFile(String)} one row at a time
+     */
+    public BagOfWords(String bowDocumentPath) throws IOException {
         if (bowDocumentPath == null) {
             bowDocumentPath = DEFAULT_EXCEL_NAME;
         }
 
-        DataFormatter formatter = new DataFormatter();
-        Workbook workbook = WorkbookFactory.create(new File(bowDocumentPath));
-        Sheet sheet = workbook.getSheetAt(0);
+        // The last two rows are the totals, so words are added two rows behind
+        Deque<String[]> pendingRows = new ArrayDeque<>();
+        try {
+            SheetReader.readFirstSheet(bowDocumentPath, NEUTRAL_LIKELIHOOD_COLUMN + 1, true, (rowNum, cells) -> {
+                if (rowNum >= 2) { // Start at 2, assume 0-1 is header
+                    pendingRows.add(cells);
+                    if (pendingRows.size() > 2) {
+                        addWordRow(pendingRows.poll());
+                    }
+                }
+            });
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Invalid bag-of-words file: " + bowDocumentPath, e);
+        }
+        if (pendingRows.size() != 2) {
+            throw new IOException("Missing total rows: " + bowDocumentPath);
+        }
 
-        int currentRowNum;
-        for (currentRowNum = 2; currentRowNum < sheet.getLastRowNum() - 1; currentRowNum++) { // Start at 2, assume 0-1 is header
-            Row currentRow = sheet.getRow(currentRowNum);
-            String word = formatter.formatCellValue(currentRow.getCell(WORD_COLUMN));
-            Map<Sentiment, Integer> countMap = new EnumMap<>(Sentiment.class);
-            Map<Sentiment, Double> likelihoodMap = new EnumMap<>(Sentiment.class);
+        try {
+            // Total Word count by class
+            String[] row = pendingRows.poll();
+            for (Sentiment sentiment : Sentiment.values()) {
+                wordsBySentimentCountMap.put(sentiment, Integer.parseInt(row[getCountColumn(sentiment)]));
+            }
 
-            // Loop for every sentiment
-            for (int i = 0; i < 3; i++) {
-                Sentiment sentiment = Sentiment.values()[i];
-                int wordCount = Integer.parseInt(formatter.formatCellValue(currentRow.getCell(i + 1)));
-                double likelihood = Double.parseDouble(formatter.formatCellValue(currentRow.getCell(i + 2)));
-                countMap.put(sentiment, wordCount);
-                likelihoodMap.put(sentiment, likelihood);
+            // Total sentence count by class
+            row = pendingRows.poll();
+            for (Sentiment sentiment : Sentiment.values()) {
+                sentencesBySentimentCountMap.put(sentiment, Integer.parseInt(row[getCountColumn(sentiment)]));
             }
-            wordCountMap.put(word, countMap);
-            wordLikelihoodMap.put(word, likelihoodMap);
         }
+        catch (NumberFormatException e) {
+            throw new IOException("Invalid bag-of-words file: " + bowDocumentPath, e);
+        }
+    }
+
+    private void addWordRow(String[] cells) {
+        String word = cells[WORD_COLUMN];
+        Map<Sentiment, Integer> countMap = new EnumMap<>(Sentiment.class);
+        Map<Sentiment, Double> likelihoodMap = new EnumMap<>(Sentiment.class);
 
-        // Total Word count by class
-        Row row = sheet.getRow(currentRowNum++);
-        for (int i = 1; i < 6; i += 2) {
-            int count = Integer.parseInt(formatter.formatCellValue(row.getCell(i + 1)));
-            wordsBySentimentCountMap.put(Sentiment.values()[(i - 1) / 2], count);
+        for (Sentiment sentiment : Sentiment.values()) {
+            countMap.put(sentiment, Integer.parseInt(cells[getCountColumn(sentiment)]));
+            likelihoodMap.put(sentiment, Double.parseDouble(cells[getLikelihoodColumn(sentiment)]));
         }
+        wordCountMap.put(word, countMap);
+        wordLikelihoodMap.put(word, likelihoodMap);
+    }
+
+    private static int getCountColumn(Sentiment sentiment) {
+        switch (sentiment) {
+            case POSITIVE:
+                return POSITIVE_COUNT_COLUMN;
+            case NEGATIVE:
+                return NEGATIVE_COUNT_COLUMN;
+            default:
+                return NEUTRAL_COUNT_COLUMN;
+        }
+    }
 
-        // Total sentence count by class
-        row = sheet.getRow(currentRowNum++);
-        for (int i = 1; i < 6; i += 2) {
-            int count = Integer.parseInt(formatter.formatCellValue(row.getCell(i + 1)));
-            sentencesBySentimentCountMap.put(Sentiment.values()[(i - 1) / 2], count);
+    private static int getLikelihoodColumn(Sentiment sentiment) {
+        switch (sentiment) {
+            case POSITIVE:
+                return POSITIVE_LIKELIHOOD_COLUMN;
+            case NEGATIVE:
+                return NEGATIVE_LIKELIHOOD_COLUMN;
+            default:
+                return NEUTRAL_LIKELIHOOD_COLUMN;
         }
     }
 
@@ -119,88 +144,64 @@ public class BagOfWords {
         }
     }
 
+    /**
+     * Writes the words one row at a time, in the format given by the file
+     * extension, see {@link TableWriter}
+     */
     public boolean writeFile(String filePath) {
         if (filePath == null) {
             filePath = DEFAULT_EXCEL_NAME;
         }
-        Workbook workbook = new HSSFWorkbook();
-        Sheet sheet = workbook.createSheet("BOW");
 
-        CellStyle centerAlignStyle = workbook.createCellStyle();
-        centerAlignStyle.setAlignment(HorizontalAlignment.CENTER);
-
-        CellStyle leftAlignStyle = workbook.createCellStyle();
-        leftAlignStyle.setAlignment(HorizontalAlignment.LEFT);
-
-        // Header row 1
-        Row row = sheet.createRow(0);
-        for (int i = 1; i <= 6; i += 2) {
-            Cell frequencyCell = row.createCell(i);
-            frequencyCell.setCellValue("f");
-            frequencyCell.setCellStyle(centerAlignStyle);
-
-            Cell toWeightCell = row.createCell(i+1);
-            toWeightCell.setCellValue("TO Weight");
-            toWeightCell.setCellStyle(centerAlignStyle);
-
-            sheet.addMergedRegion(new CellRangeAddress(1, 1, i, i + 1));
-        }
-
-        // Header row 2
-        row = sheet.createRow(1);
-        String[] symbols = {"+", "-", "N"};
-        for (int i = 0; i < symbols.length; i++) {
-            Cell sentimentCell = row.createCell(i * 2 + 1);
-            sentimentCell.setCellValue(symbols[i]);
-            sentimentCell.setCellStyle(centerAlignStyle);
-        }
-
-        // Word list starts here
-        Sentiment[] sentimentValues = {Sentiment.POSITIVE, Sentiment. NEGATIVE, Sentiment.NEUTRAL};
-        int currentRowNum = 2;
-        for (Map.Entry<String, Map<Sentiment, Integer>> wordCountEntry : wordCountMap.entrySet()) {
-            Row currentRow = sheet.createRow(currentRowNum++);
-            String word = wordCountEntry.getKey();
-            Map<Sentiment, Integer> countMap = wordCountEntry.getValue();
-            Map<Sentiment, Double> likelihoodMap = wordLikelihoodMap.get(word);
-
-            Cell wordCell = currentRow.createCell(0);
-            wordCell.setCellValue(word);
+        Sentiment[] sentimentValues = {Sentiment.POSITIVE, Sentiment.NEGATIVE, Sentiment.NEUTRAL};
+        try (TableWriter writer = TableWriter.open(filePath, "BOW")) {
+            writer.setColumnWidth(WORD_COLUMN, 20);
+            for (int i = 0; i < sentimentValues.length; i++) {
+                writer.setColumnWidth(getCountColumn(sentimentValues[i]), 10);
+                writer.setColumnWidth(getLikelihoodColumn(sentimentValues[i]), 24);
+            }
 
-            for (int i = 0; i < 3; i++) {
-                Cell frequencyCell = currentRow.createCell(i * 2 + 1);
-                frequencyCell.setCellValue(countMap.get(sentimentValues[i]));
-                frequencyCell.setCellStyle(leftAlignStyle);
+            // Header row 1
+            writer.writeRow(null, "f", "TO Weight", "f", "TO Weight", "f", "TO Weight");
 
-                Cell weightCell = currentRow.createCell(i * 2 + 2);
-                weightCell.setCellValue(likelihoodMap.get(sentimentValues[i]));
-                weightCell.setCellStyle(leftAlignStyle);
+            // Header row 2
+            writer.writeRow(null, "+", null, "-", null, "N");
+            for (Sentiment sentiment : sentimentValues) {
+                writer.mergeCells(getCountColumn(sentiment), getLikelihoodColumn(sentiment));
             }
-        }
 
-        // Total word count per class
-        row = sheet.createRow(currentRowNum++);
-        row.createCell(0).setCellValue("Total count:");
-        row.createCell(1).setCellValue(wordsBySentimentCountMap.get(Sentiment.POSITIVE));
-        row.createCell(3).setCellValue(wordsBySentimentCountMap.get(Sentiment.NEGATIVE));
-        row.createCell(5).setCellValue(wordsBySentimentCountMap.get(Sentiment.NEUTRAL));
-
-        // Total sentence count per class
-        row = sheet.createRow(currentRowNum);
-        row.createCell(0).setCellValue("Sentences:");
-        row.createCell(1).setCellValue(sentencesBySentimentCountMap.get(Sentiment.POSITIVE));
-        row.createCell(3).setCellValue(sentencesBySentimentCountMap.get(Sentiment.NEGATIVE));
-        row.createCell(5).setCellValue(sentencesBySentimentCountMap.get(Sentiment.NEUTRAL));
-
-        // Auto size columns
-        for (int i = 0; i <= 6; i++) {
-            sheet.autoSizeColumn(i);
-            if (sheet.getColumnWidth(i) < sheet.getDefaultColumnWidth()) {
-                sheet.setColumnWidth(i, sheet.getDefaultColumnWidth());
+            // Word list starts here
+            Object[] values = new Object[NEUTRAL_LIKELIHOOD_COLUMN + 1];
+            for (Map.Entry<String, Map<Sentiment, Integer>> wordCountEntry : wordCountMap.entrySet()) {
+                String word = wordCountEntry.getKey();
+                Map<Sentiment, Integer> countMap = wordCountEntry.getValue();
+                Map<Sentiment, Double> likelihoodMap = wordLikelihoodMap.get(word);
+
+                values[WORD_COLUMN] = word;
+                for (Sentiment sentiment : sentimentValues) {
+                    values[getCountColumn(sentiment)] = countMap.get(sentiment);
+                    values[getLikelihoodColumn(sentiment)] = likelihoodMap.get(sentiment);
+                }
+                writer.writeRow(values);
             }
-        }
 
-        return WorkbookUtil.writeWorkbookToFile(workbook, filePath);
+            // Total word count per class
+            writer.writeRow("Total count:",
+                    wordsBySentimentCountMap.get(Sentiment.POSITIVE), null,
+                    wordsBySentimentCountMap.get(Sentiment.NEGATIVE), null,
+                    wordsBySentimentCountMap.get(Sentiment.NEUTRAL));
+
+            // Total sentence count per class
+            writer.writeRow("Sentences:",
+                    sentencesBySentimentCountMap.get(Sentiment.POSITIVE), null,
+                    sentencesBySentimentCountMap.get(Sentiment.NEGATIVE), null,
+                    sentencesBySentimentCountMap.get(Sentiment.NEUTRAL));
+            return true;
+        }
+        catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 
     public Set<String> getVocabulary() {
@@ -0,0 +1,164 @@
+package org.lexicon;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.data.Document;
+import org.lexicon.util.Metrics;
+import org.lexicon.util.ProgressBar;
+
+/**
+ * Classifies every sentence of a document, splitting the sentences into
+ * chunks that run on a fork-join pool. Predictions are collected in input
+ * order, so the result is the same for any number of threads.
+ *
+ * A listener can receive the predictions while the test runs. It is called
+ * in input order, one sentence at a time, as soon as all sentences before it
+ * are classified.
+ */
+public class BatchTester {
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final int CHUNK_SIZE = 256;
+
+    private final int threads;
+
+    public BatchTester() {
+        this(DEFAULT_THREADS);
+    }
+
+    public BatchTester(int threads) {
+        if (threads < 1) { throw new IllegalArgumentException("threads must be at least 1: " + threads); }
+        this.threads = threads;
+    }
+
+    /**
+     * @param classifier
+     *            Returns the prediction for a sentence; must be safe to call from several threads
+     */
+    public TestResult test(Document testDocument, Function<String, Sentiment> classifier) {
+        return test(testDocument, classifier, null);
+    }
+
+    /**
+     * @param listener
+     *            Receives each sentence with its prediction in input order; may be <code>null</code>
+     */
+    public TestResult test(Document testDocument, Function<String, Sentiment> classifier,
+            BiConsumer<AnnotatedText, Sentiment> listener) {
+        List<AnnotatedText> sentences = testDocument.getData();
+        Sentiment[] predictions = new Sentiment[sentences.size()];
+        ProgressBar bar = new ProgressBar(sentences.size());
+        Emitter emitter = listener != null ? new Emitter(sentences, predictions, listener) : null;
+
+        ClassifyTask task = new ClassifyTask(sentences, predictions, classifier, bar, emitter, 0, sentences.size());
+        try (Metrics.Phase phase = Metrics.startPhase("test")) {
+            phase.addItems(sentences.size());
+            if (threads == 1) {
+                task.classify();
+            }
+            else {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    pool.invoke(task);
+                }
+                finally {
+                    pool.shutdown();
+                }
+            }
+        }
+
+        Map<AnnotatedText, Sentiment> result = new LinkedHashMap<>();
+        for (int i = 0; i < predictions.length; i++) {
+            result.put(sentences.get(i), predictions[i]);
+        }
+        return new TestResult(result);
+    }
+
+    // Passes predictions to the listener in input order
+    private static class Emitter {
+
+        private final List<AnnotatedText> sentences;
+        private final Sentiment[] predictions;
+        private final BiConsumer<AnnotatedText, Sentiment> listener;
+
+        private final boolean[] classified;
+        private int next = 0;
+
+        Emitter(List<AnnotatedText> sentences, Sentiment[] predictions, BiConsumer<AnnotatedText, Sentiment> listener) {
+            this.sentences = sentences;
+            this.predictions = predictions;
+            this.listener = listener;
+            this.classified = new boolean[predictions.length];
+        }
+
+        synchronized void classified(int start, int end) {
+            for (int i = start; i < end; i++) {
+                classified[i] = true;
+            }
+            while (next < classified.length && classified[next]) {
+                listener.accept(sentences.get(next), predictions[next]);
+                next++;
+            }
+        }
+    }
+
+    private static class ClassifyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 2633520148957346373L;
+
+        private final List<AnnotatedText> sentences;
+        private final Sentiment[] predictions;
+        private final Function<String, Sentiment> classifier;
+        private final ProgressBar bar;
+        private final Emitter emitter;
+        private final int start;
+        private final int end;
+
+        ClassifyTask(List<AnnotatedText> sentences, Sentiment[] predictions, Function<String, Sentiment> classifier,
+                ProgressBar bar, Emitter emitter, int start, int end) {
+            this.sentences = sentences;
+            this.predictions = predictions;
+            this.classifier = classifier;
+            this.bar = bar;
+            this.emitter = emitter;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= CHUNK_SIZE) {
+                classify();
+            }
+            else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ClassifyTask(sentences, predictions, classifier, bar, emitter, start, middle),
+                        new ClassifyTask(sentences, predictions, classifier, bar, emitter, middle, end));
+            }
+        }
+
+        void classify() {
+            Metrics.Histogram latency = Metrics.histogram("predict.latencyNanos");
+            for (int chunkStart = start; chunkStart < end; chunkStart += CHUNK_SIZE) {
+                int chunkEnd = Math.min(chunkStart + CHUNK_SIZE, end);
+                for (int i = chunkStart; i < chunkEnd; i++) {
+                    long sentenceStart = System.nanoTime();
+                    predictions[i] = classifier.apply(sentences.get(i).getText());
+                    latency.record(System.nanoTime() - sentenceStart);
+                }
+                bar.step(chunkEnd - chunkStart);
+                if (emitter != null) {
+                    emitter.classified(chunkStart, chunkEnd);
+                }
+            }
+        }
+    }
+}
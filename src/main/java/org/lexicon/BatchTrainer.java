@@ -0,0 +1,235 @@
+package org.lexicon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.lexicon.data.TokenizedCorpus;
+import org.lexicon.util.ProgressBar;
+
+/**
+ * Counts the training sentences of a corpus on a fork-join pool. The
+ * sentences are split into shards, one per thread:
+ *
+ * <pre>
+ * TO       each shard counts occurrences into its own table, and the tables
+ *          are added together
+ * TF/TFIDF each shard finds the term frequencies of its sentences and sorts
+ *          them by range of word ids; each range is then added to the counts
+ *          by one thread, going through the shards in order
+ * </pre>
+ *
+ * Every word's sums get their terms in sentence order either way, so the
+ * counts are the same, bit for bit, as adding the sentences one at a time.
+ */
+public class BatchTrainer {
+
+    public static final int DEFAULT_THREADS = BatchTester.DEFAULT_THREADS;
+
+    // Fewer sentences than this per thread are counted on the calling thread
+    private static final int MIN_SHARD_SIZE = 2048;
+
+    private final int threads;
+
+    public BatchTrainer() {
+        this(DEFAULT_THREADS);
+    }
+
+    public BatchTrainer(int threads) {
+        if (threads < 1) { throw new IllegalArgumentException("threads must be at least 1: " + threads); }
+        this.threads = threads;
+    }
+
+    /**
+     * @return counts of every sentence of the corpus, with the same word ids
+     *         as the corpus vocabulary
+     */
+    public TrainingStats count(TokenizedCorpus corpus, ExtractionScheme scheme) {
+        int[][] tokens = new int[corpus.size()][];
+        Sentiment[] categories = new Sentiment[corpus.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = corpus.getTokens(i);
+            categories[i] = corpus.getCategory(i);
+        }
+        // The copied word list has the same ids as the corpus
+        TrainingStats stats = new TrainingStats(scheme, NaiveBayesClassifier.copy(corpus.getVocabulary()));
+        add(stats, tokens, categories);
+        return stats;
+    }
+
+    /**
+     * @param tokens word ids of each sentence in the words of
+     *            <code>stats</code>, which must already have all of them
+     */
+    void add(TrainingStats stats, int[][] tokens, Sentiment[] categories) {
+        ProgressBar bar = new ProgressBar(tokens.length);
+        int shardCount = Math.min(threads, tokens.length / MIN_SHARD_SIZE);
+        if (shardCount <= 1) {
+            for (int i = 0; i < tokens.length; i++) {
+                stats.add(tokens[i], categories[i]);
+                bar.step();
+            }
+            return;
+        }
+
+        int wordCount = stats.getWords().size();
+        stats.ensureCapacity(wordCount);
+        List<Shard> shards = new ArrayList<>(shardCount);
+        for (int s = 0; s < shardCount; s++) {
+            int start = (int) ((long) tokens.length * s / shardCount);
+            int end = (int) ((long) tokens.length * (s + 1) / shardCount);
+            shards.add(new Shard(stats.getScheme(), tokens, categories, start, end, wordCount, shardCount, bar));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            invokeAll(pool, shards);
+            for (Shard shard : shards) {
+                stats.addSentenceCounts(shard.sentenceCounts);
+            }
+
+            if (stats.getScheme() == ExtractionScheme.TO) {
+                // Integer sums, so the order of the tables does not matter
+                for (Shard shard : shards) {
+                    stats.addOccurrences(shard.occurrences);
+                }
+                return;
+            }
+
+            List<Callable<Void>> ranges = new ArrayList<>(shardCount);
+            for (int r = 0; r < shardCount; r++) {
+                int range = r;
+                ranges.add(() -> {
+                    for (Shard shard : shards) {
+                        shard.terms[range].addTo(stats);
+                    }
+                    return null;
+                });
+            }
+            invokeAll(pool, ranges);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private static <T> void invokeAll(ForkJoinPool pool, List<? extends Callable<T>> tasks) {
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Training interrupted", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Counts of a range of sentences
+    private static class Shard implements Callable<Void> {
+
+        private final ExtractionScheme scheme;
+        private final int[][] tokens;
+        private final Sentiment[] categories;
+        private final int start;
+        private final int end;
+        private final int wordCount;
+        private final ProgressBar bar;
+
+        final int[] sentenceCounts = new int[Sentiment.values().length];
+
+        // By class and word id (TO)
+        int[][] occurrences;
+
+        // By range of word ids (TF, TFIDF)
+        final Terms[] terms;
+
+        Shard(ExtractionScheme scheme, int[][] tokens, Sentiment[] categories, int start, int end, int wordCount,
+                int rangeCount, ProgressBar bar) {
+            this.scheme = scheme;
+            this.tokens = tokens;
+            this.categories = categories;
+            this.start = start;
+            this.end = end;
+            this.wordCount = wordCount;
+            this.bar = bar;
+            this.terms = new Terms[rangeCount];
+        }
+
+        @Override
+        public Void call() {
+            if (scheme == ExtractionScheme.TO) {
+                occurrences = new int[sentenceCounts.length][wordCount];
+            }
+            else {
+                for (int r = 0; r < terms.length; r++) {
+                    terms[r] = new Terms();
+                }
+            }
+
+            int[] termIds = new int[16];
+            double[] termFrequencies = new double[16];
+            for (int i = start; i < end; i++) {
+                int[] ids = tokens[i];
+                int c = categories[i].ordinal();
+                sentenceCounts[c]++;
+
+                if (scheme == ExtractionScheme.TO) {
+                    for (int id : ids) {
+                        occurrences[c][id]++;
+                    }
+                }
+                else {
+                    if (ids.length > termIds.length) {
+                        termIds = new int[ids.length];
+                        termFrequencies = new double[ids.length];
+                    }
+                    int termCount = TrainingStats.getTermFrequencies(ids, termIds, termFrequencies);
+                    for (int t = 0; t < termCount; t++) {
+                        int range = (int) ((long) termIds[t] * terms.length / wordCount);
+                        terms[range].add(c, termIds[t], termFrequencies[t]);
+                    }
+                }
+            }
+            bar.step(end - start);
+            return null;
+        }
+    }
+
+    // Term frequencies of words in one range, in sentence order
+    private static class Terms {
+
+        private byte[] classes = new byte[256];
+        private int[] ids = new int[256];
+        private double[] termFrequencies = new double[256];
+        private int size = 0;
+
+        void add(int c, int id, double termFrequency) {
+            if (size == ids.length) {
+                classes = Arrays.copyOf(classes, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                termFrequencies = Arrays.copyOf(termFrequencies, size * 2);
+            }
+            classes[size] = (byte) c;
+            ids[size] = id;
+            termFrequencies[size] = termFrequency;
+            size++;
+        }
+
+        void addTo(TrainingStats stats) {
+            for (int i = 0; i < size; i++) {
+                stats.addTerm(classes[i], ids[i], termFrequencies[i]);
+            }
+        }
+    }
+}
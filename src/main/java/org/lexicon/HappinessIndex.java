@@ -3,9 +3,9 @@ package org.lexicon;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
@@ -16,8 +16,8 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.lexicon.data.AnnotatedText;
 import org.lexicon.data.Document;
+import org.lexicon.data.Vocabulary;
 import org.lexicon.process.DataProcessor;
-import org.lexicon.util.ProgressBar;
 
 public class HappinessIndex {
 
@@ -56,50 +56,63 @@ public class HappinessIndex {
 
 
     public TestResult test(Document testDocument, List<Integer> levels) {
-        Map<AnnotatedText, Sentiment> result = new LinkedHashMap<>();
-        ProgressBar bar = new ProgressBar(testDocument.getData().size());
-        for (AnnotatedText sentence : testDocument.getData()) {
-            Sentiment prediction = predict(sentence.getText(), levels);
-            result.put(sentence, prediction);
-            bar.step();
-        }
-        return new TestResult(result);
+        return test(testDocument, levels, BatchTester.DEFAULT_THREADS);
     }
 
-    private Sentiment predict(String sentence, List<Integer> levels) {
-        List<String> tokens = DataProcessor.preprocess(sentence);
-
-        Sentiment maxSentiment = null;
-        double maxScore = Double.NEGATIVE_INFINITY;
-
-        for (Sentiment sentiment : Sentiment.values()) {
-            double score = 0;
+    public TestResult test(Document testDocument, List<Integer> levels, int threads) {
+        return test(testDocument, levels, threads, null);
+    }
 
-            for (String token : tokens) {
-                if (lexiconWordMap.containsKey(token)) {
-                    LexiconWordDetail detail = lexiconWordMap.get(token);
+    public TestResult test(Document testDocument, List<Integer> levels, int threads,
+            BiConsumer<AnnotatedText, Sentiment> listener) {
+        ScoreTable table = compile(levels);
+        return new BatchTester(threads).test(testDocument, table::predict, listener);
+    }
 
-                    if (sentiment == Sentiment.POSITIVE && detail.scores[levels.get(0) - 1] > 5.5) {
-                        score += getScore(detail.scores, levels);
-                    }
-                    else if (sentiment == Sentiment.NEGATIVE && detail.scores[levels.get(0) - 1] < 4.5) {
-                        score += getScore(detail.scores, levels);
-                    }
-                    else if (sentiment == Sentiment.NEUTRAL && detail.scores[levels.get(0) - 1] >= 4.5 && detail.scores[levels.get(0) - 1] <= 5.5) {
-                        score += getScore(detail.scores, levels);
-                    }
-                }
-            }
+    /**
+     * Finds the sentiment and score of every lexicon word for the levels once,
+     * so sentences are scored with one lookup per token
+     *
+     * @param levels
+     *            score columns added up for a word, from 1 to 3; the first
+     *            one also decides the sentiment of the word
+     */
+    public ScoreTable compile(List<Integer> levels) {
+        if (levels.isEmpty() || levels.get(0) < 1 || levels.get(0) > 3) {
+            throw new IllegalArgumentException("First level must be from 1 to 3: " + levels);
+        }
 
-            if (maxScore < score) {
-                maxSentiment = sentiment;
-                maxScore = score;
+        Vocabulary words = new Vocabulary(lexiconWordMap.size());
+        byte[] sentiments = new byte[lexiconWordMap.size()];
+        double[] scores = new double[lexiconWordMap.size()];
+        for (Map.Entry<String, LexiconWordDetail> entry : lexiconWordMap.entrySet()) {
+            double[] wordScores = entry.getValue().scores;
+            Sentiment sentiment = getSentiment(wordScores[levels.get(0) - 1]);
+            if (sentiment != null) {
+                int id = words.add(entry.getKey());
+                sentiments[id] = (byte) sentiment.ordinal();
+                scores[id] = getScore(wordScores, levels);
             }
         }
-
-        return maxSentiment;
+        return new ScoreTable(words, sentiments, scores);
     }
 
+    /**
+     * @return sentiment of a word with the score, or <code>null</code> if the
+     *         score is not a number
+     */
+    private static Sentiment getSentiment(double score) {
+        if (score > 5.5) {
+            return Sentiment.POSITIVE;
+        }
+        else if (score < 4.5) {
+            return Sentiment.NEGATIVE;
+        }
+        else if (score >= 4.5 && score <= 5.5) {
+            return Sentiment.NEUTRAL;
+        }
+        return null;
+    }
 
     private double[] getRowScores(Row row) {
         DataFormatter formatter = new DataFormatter();
@@ -116,7 +129,7 @@ public class HappinessIndex {
         }
     }
 
-    private double getScore(double[] scores, List<Integer> levels) {
+    private static double getScore(double[] scores, List<Integer> levels) {
         double score = 0;
         for (Integer level : levels) {
             level--;
@@ -132,6 +145,57 @@ public class HappinessIndex {
         return score;
     }
 
+    /**
+     * Sentiment and score of each lexicon word for one list of levels, see
+     * {@link HappinessIndex#compile(List)}. Words whose score is not a number
+     * are left out, since they add to no sentiment.
+     */
+    public static class ScoreTable {
+
+        private final Vocabulary words;
+        private final byte[] sentiments;
+        private final double[] scores;
+
+        private ScoreTable(Vocabulary words, byte[] sentiments, double[] scores) {
+            this.words = words;
+            this.sentiments = sentiments;
+            this.scores = scores;
+        }
+
+        public int size() {
+            return words.size();
+        }
+
+        public Sentiment predict(String sentence) {
+            return predict(DataProcessor.preprocess(sentence));
+        }
+
+        /**
+         * @return sentiment with the highest sum of scores of the tokens, the
+         *         first one in {@link Sentiment} order on a tie
+         */
+        public Sentiment predict(List<String> tokens) {
+            Sentiment[] values = Sentiment.values();
+            double[] sums = new double[values.length];
+            for (String token : tokens) {
+                int id = words.indexOf(token);
+                if (id >= 0) {
+                    sums[sentiments[id]] += scores[id];
+                }
+            }
+
+            Sentiment maxSentiment = null;
+            double maxScore = Double.NEGATIVE_INFINITY;
+            for (int c = 0; c < sums.length; c++) {
+                if (maxScore < sums[c]) {
+                    maxSentiment = values[c];
+                    maxScore = sums[c];
+                }
+            }
+            return maxSentiment;
+        }
+    }
+
     private static class LexiconWordDetail {
         public int count = 0;
         public double[] scores =  { 0, 0, 0 };
@@ -1,81 +1,54 @@
 package org.lexicon;
 
-import static org.lexicon.util.ResourceUtil.TRANSLATIONS_JSON;
-
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
-import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.lexicon.data.Translation;
+import org.lexicon.data.TranslationStore;
 import org.lexicon.process.CebuanoNormalizer;
-import org.lexicon.process.DataProcessor;
 import org.lexicon.process.dictionary.CebuanoDictionary;
-import org.lexicon.util.ResourceUtil;
-import org.lexicon.util.WorkbookUtil;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-
+import org.lexicon.util.SheetReader;
+import org.lexicon.util.TableWriter;
+
+/**
+ * Adds Cebuano translations to a lexicon of English words. Rows of the same
+ * English word follow each other; rows without a Cebuano word get the next
+ * translation not used yet, and translations left over once the rows of the
+ * word end are written as more rows like its first one.
+ *
+ * Rows are read and written one at a time, so only the translations of the
+ * current word are kept in memory.
+ */
 public class LexiconPopulator {
 
     public static final String BASE_EXCEL_FILE = "./files/Bisaya Lexicon.xls";
-    public static final String OUTPUT_EXCEL_FILE = "./files/Output.xls";
+    public static final String OUTPUT_EXCEL_FILE = "./files/Output.xlsx";
 
     private static final int WORD_ID_COLUMN = 0;
     private static final int ENGLISH_WORD_COLUMN = 1;
     private static final int CEBUANO_WORD_COLUMN = 2;
-    private static final int SCORE1_COLUMN = 3;
-    private static final int SCORE2_COLUMN = 4;
-    private static final int SCORE3_COLUMN = 5;
     private static final int POS_COLUMN = 7;
+    private static final int COLUMN_COUNT = 8;
 
-    private static JsonObject translations = null;
-    private static CellStyle cellStyle = null;
+    public static final String SHEET_NAME = "ANEW-2013.csv";
 
-    public static void copyRow(Row fromRow, Row toRow) {
-        DataFormatter formatter = new DataFormatter();
-        if (cellStyle == null) {
-            cellStyle = toRow.getSheet().getWorkbook().createCellStyle();
-            cellStyle.setAlignment(HorizontalAlignment.RIGHT);
-        }
-
-        toRow.createCell(WORD_ID_COLUMN).setCellValue(formatter.formatCellValue(fromRow.getCell(WORD_ID_COLUMN)));
-        toRow.createCell(ENGLISH_WORD_COLUMN)
-                .setCellValue(formatter.formatCellValue(fromRow.getCell(ENGLISH_WORD_COLUMN)));
-        toRow.createCell(CEBUANO_WORD_COLUMN)
-                .setCellValue(formatter.formatCellValue(fromRow.getCell(CEBUANO_WORD_COLUMN)));
-        toRow.createCell(SCORE1_COLUMN).setCellValue(formatter.formatCellValue(fromRow.getCell(SCORE1_COLUMN)));
-        toRow.createCell(SCORE2_COLUMN).setCellValue(formatter.formatCellValue(fromRow.getCell(SCORE2_COLUMN)));
-        toRow.createCell(SCORE3_COLUMN).setCellValue(formatter.formatCellValue(fromRow.getCell(SCORE3_COLUMN)));
-        toRow.createCell(POS_COLUMN).setCellValue(formatter.formatCellValue(fromRow.getCell(POS_COLUMN)));
-
-        toRow.getCell(WORD_ID_COLUMN).setCellStyle(cellStyle);
-        toRow.getCell(SCORE1_COLUMN).setCellStyle(cellStyle);
-        toRow.getCell(SCORE2_COLUMN).setCellStyle(cellStyle);
-        toRow.getCell(SCORE3_COLUMN).setCellStyle(cellStyle);
-    }
-
-    private static Translation getNextString(Set<Translation> from, Set<String> restrictions) {
+    /**
+     * Removes translations from the start of <code>from</code> until one that
+     * is not in <code>restrictions</code>
+     *
+     * @return that translation, or <code>null</code> if there is none
+     */
+    private static Translation getNextString(NavigableSet<Translation> from, Set<String> restrictions) {
         if (from == null)
             return null;
 
-        while (from.iterator().hasNext()) {
-            Translation translation = from.iterator().next();
-            from.remove(translation);
-
+        Translation translation;
+        while ((translation = from.pollFirst()) != null) {
             if (!restrictions.contains(translation.getWord())) { return translation; }
         }
 
@@ -98,138 +71,130 @@ public class LexiconPopulator {
         return translation;
     }
 
-    public static Set<Translation> getTranslations(String word) {
-        if (translations == null) {
-            translations = ResourceUtil.parseJson(TRANSLATIONS_JSON).getAsJsonObject();
-        }
-        JsonArray cebuanoWords = translations.getAsJsonArray(word);
-
-        Set<Translation> wordSet = new TreeSet<>();
-        if (cebuanoWords != null) {
-            for (int i = 0; i < cebuanoWords.size(); i++) {
-                JsonObject jsonObj = cebuanoWords.get(i).getAsJsonObject();
-                String cleanedWord = DataProcessor.clean(jsonObj.get("translation").getAsString());
-                wordSet.add(new Translation(cleanedWord, jsonObj.get("pos").getAsString()));
-                Set<String> otherForms = CebuanoDictionary.getOtherForms(cleanedWord);
-                for (String form : otherForms) {
-                    wordSet.add(new Translation(form, jsonObj.get("pos").getAsString()));
-                }
-            }
-        }
-        else {
+    /**
+     * @return cleaned translations of the word and their other forms, see
+     *         {@link TranslationStore}
+     */
+    public static NavigableSet<Translation> getTranslations(String word) {
+        NavigableSet<Translation> wordSet = TranslationStore.getTranslations(word);
+        if (wordSet == null) {
             System.out.println("Word not found: " + word);
+            return new TreeSet<>();
         }
-
         return wordSet;
     }
 
     public static boolean populate(String baseFile, String resultFile) {
-        try {
-            Workbook wb = WorkbookFactory.create(new File(baseFile));
-            Sheet sheet = wb.getSheetAt(0);
-
-            Workbook wbOut = new HSSFWorkbook();
-            Sheet sheetOut = wbOut.createSheet("ANEW-2013.csv");
-
-            DataFormatter formatter = new DataFormatter();
-            CellStyle styleRightAlign = sheet.getRow(1).getCell(3).getCellStyle();
-            styleRightAlign.cloneStyleFrom(sheet.getRow(1).getCell(3).getCellStyle());
-            styleRightAlign.setAlignment(HorizontalAlignment.RIGHT);
-
-            String currentWord = "";
-            int wordStartRow = 1;
-            Set<String> existingCebuanoWords = new TreeSet<>();
-            Set<Translation> cebuanoWordsToAdd = new TreeSet<>();
-
-            int currentRowNum = 0;
-            int currentRowOut = 0;
-            while (currentRowNum < sheet.getLastRowNum()) {
-                Row currentRow = sheet.getRow(currentRowNum);
-                if (currentRow == null) {
-                    currentRowNum++;
-                    continue;
+        try (TableWriter out = TableWriter.open(resultFile, SHEET_NAME)) {
+            Populator populator = new Populator(out);
+            SheetReader.readFirstSheet(baseFile, COLUMN_COUNT, (rowNum, cells) -> {
+                try {
+                    populator.row(cells);
                 }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            populator.finish();
+            return true;
+        }
+        catch (IOException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+        catch (UncheckedIOException e) {
+            System.err.println(e.getCause().getMessage());
+            return false;
+        }
+    }
 
-                String currentRowWordId = formatter.formatCellValue(currentRow.getCell(WORD_ID_COLUMN));
-                String currentRowWord = formatter.formatCellValue(currentRow.getCell(ENGLISH_WORD_COLUMN)).trim();
+    // Translations of the English word of the current rows
+    private static class Populator {
 
-                // Clear pos cell
-                if (currentRow.getCell(POS_COLUMN) != null)
-                    currentRow.getCell(POS_COLUMN).setCellType(CellType.BLANK);
+        private final TableWriter out;
 
-                if (currentRowWordId.isEmpty()) {
-                    copyRow(currentRow, sheetOut.createRow(currentRowOut++));
-                    currentRowNum++;
-                }
-                else if (Objects.equals(currentWord, currentRowWord)) {
-                    if (wordStartRow == currentRowNum) {
-                        cebuanoWordsToAdd = getTranslations(currentWord);
-                    }
-
-                    String currentCebuanoWord = CebuanoNormalizer
-                            .normalize(formatter.formatCellValue(currentRow.getCell(CEBUANO_WORD_COLUMN)));
-
-                    if (currentCebuanoWord.contains(",")) { // translations has comma-separated values
-                        String[] wordsToAdd = currentCebuanoWord.replace(" ", "").split(",");
-                        for (String word : wordsToAdd)
-                            cebuanoWordsToAdd.add(new Translation(word, ""));
-                        currentCebuanoWord = "";
-                    }
-
-                    if (currentCebuanoWord.isEmpty() && cebuanoWordsToAdd.size() > 0) { // CASE: No Translation
-                        Translation cebuanoWord = getNextString(cebuanoWordsToAdd, existingCebuanoWords);
-                        currentRow.createCell(CEBUANO_WORD_COLUMN).setCellValue(cebuanoWord.getWord());
-                        currentRow.createCell(POS_COLUMN).setCellValue(cebuanoWord.getPOS());
-                        cebuanoWordsToAdd.remove(cebuanoWord);
-                        existingCebuanoWords.add(cebuanoWord.getWord());
-                    }
-                    else if (!currentCebuanoWord.isEmpty()) {
-                        currentRow.getCell(CEBUANO_WORD_COLUMN).setCellValue(currentCebuanoWord);
-                        currentRow.createCell(POS_COLUMN).setCellValue("");
-                        existingCebuanoWords.add(currentCebuanoWord);
-
-                        Set<String> otherForms = CebuanoDictionary.getOtherForms(currentCebuanoWord);
-                        for (String form : otherForms) {
-                            cebuanoWordsToAdd.add(new Translation(form, ""));
-                        }
-                    }
-
-                    currentRowNum++;
-                    copyRow(currentRow, sheetOut.createRow(currentRowOut++));
+        private String currentWord = null;
+        private String[] firstRow = null;
+        private Set<String> existingCebuanoWords = new HashSet<>();
+        private NavigableSet<Translation> cebuanoWordsToAdd = new TreeSet<>();
+
+        Populator(TableWriter out) {
+            this.out = out;
+        }
+
+        void row(String[] cells) throws IOException {
+            String wordId = cells[WORD_ID_COLUMN];
+            String englishWord = cells[ENGLISH_WORD_COLUMN].trim();
+
+            // Clear pos cell
+            cells[POS_COLUMN] = "";
+
+            if (wordId.isEmpty()) {
+                write(cells);
+                return;
+            }
+            if (!Objects.equals(currentWord, englishWord)) {
+                // New word found: add the rest of the translations, then reset variables
+                finish();
+                currentWord = englishWord;
+                firstRow = null;
+                existingCebuanoWords = new HashSet<>();
+                System.out.println("Word:\t" + englishWord);
+                cebuanoWordsToAdd = getTranslations(currentWord);
+            }
+
+            String currentCebuanoWord = CebuanoNormalizer.normalize(cells[CEBUANO_WORD_COLUMN]);
+            if (currentCebuanoWord.contains(",")) { // translations has comma-separated values
+                String[] wordsToAdd = currentCebuanoWord.replace(" ", "").split(",");
+                for (String word : wordsToAdd)
+                    cebuanoWordsToAdd.add(new Translation(word, ""));
+                currentCebuanoWord = "";
+            }
+
+            if (currentCebuanoWord.isEmpty()) { // CASE: No Translation
+                Translation cebuanoWord = getNextString(cebuanoWordsToAdd, existingCebuanoWords);
+                if (cebuanoWord != null) {
+                    cells[CEBUANO_WORD_COLUMN] = cebuanoWord.getWord();
+                    cells[POS_COLUMN] = cebuanoWord.getPOS();
+                    existingCebuanoWords.add(cebuanoWord.getWord());
                 }
-                else {
-                    Translation wordToAdd = getNextString(cebuanoWordsToAdd, existingCebuanoWords);
-
-                    // Insert cebuano translation
-                    if (wordToAdd != null) {
-                        Row row = sheetOut.createRow(currentRowOut++);
-                        Row baseRow = sheet.getRow(wordStartRow);
-
-                        copyRow(baseRow, row);
-                        row.createCell(CEBUANO_WORD_COLUMN).setCellValue(wordToAdd.getWord());
-                        row.createCell(POS_COLUMN).setCellValue(wordToAdd.getPOS());
-                    }
-                    else { // New word found: reset variables
-                        wordStartRow = currentRowNum;
-                        currentWord = formatter.formatCellValue(currentRow.getCell(ENGLISH_WORD_COLUMN)).trim();
-                        existingCebuanoWords = new TreeSet<>();
-                        cebuanoWordsToAdd = null;
-
-                        System.out.println("Word:\t" + currentRowWord);
-                    }
+            }
+            else {
+                cells[CEBUANO_WORD_COLUMN] = currentCebuanoWord;
+                existingCebuanoWords.add(currentCebuanoWord);
+
+                Set<String> otherForms = CebuanoDictionary.getOtherForms(currentCebuanoWord);
+                for (String form : otherForms) {
+                    cebuanoWordsToAdd.add(new Translation(form, ""));
                 }
             }
 
-            int numberOfColumns = 8;
-            for (int i = 0; i < numberOfColumns; i++) {
-                sheetOut.autoSizeColumn(i);
+            if (firstRow == null) {
+                firstRow = cells.clone();
             }
+            write(cells);
+        }
 
-            return WorkbookUtil.writeWorkbookToFile(wbOut, resultFile);
+        /**
+         * Inserts a row for each translation of the current word that is not used yet
+         */
+        void finish() throws IOException {
+            Translation wordToAdd;
+            while ((wordToAdd = getNextString(cebuanoWordsToAdd, existingCebuanoWords)) != null) {
+                String[] row = firstRow.clone();
+                row[CEBUANO_WORD_COLUMN] = wordToAdd.getWord();
+                row[POS_COLUMN] = wordToAdd.getPOS();
+                write(row);
+            }
         }
-        catch (EncryptedDocumentException | InvalidFormatException | IOException e) {
-            System.err.println(e.getMessage());
-            return false;
+
+        private void write(String[] cells) throws IOException {
+            Object[] values = new Object[COLUMN_COUNT];
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                // The column before the part of speech is not copied
+                values[i] = i != POS_COLUMN - 1 && !cells[i].isEmpty() ? cells[i] : null;
+            }
+            out.writeRow(values);
         }
     }
 }
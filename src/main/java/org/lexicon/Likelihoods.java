@@ -0,0 +1,280 @@
+package org.lexicon;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Log likelihood of each word id for each class. Models trained from counts
+ * keep only the non-zero value of each (word, class) pair, see
+ * {@link TrainingStats}, and calculate the Laplace smoothed likelihoods from
+ * them when first used:
+ *
+ * <pre>
+ * log((value + alpha) / (class total + alpha * vocabulary size))
+ * </pre>
+ *
+ * Words without a value for a class share one default likelihood for it, so
+ * the smoothing constant can be changed without training again. Models that
+ * only have the likelihoods, like the ones saved by older versions, keep them
+ * in a dense table instead.
+ */
+public class Likelihoods implements Serializable {
+
+    private static final long serialVersionUID = 5531876429870214125L;
+
+    public static final double DEFAULT_ALPHA = 1;
+
+    private final int classCount;
+    private final int wordCount;
+
+    // Values of word id are entries offsets[id] until offsets[id + 1], in class order
+    private final int[] offsets;
+    private final byte[] classes;
+    private final double[] values;
+
+    private final double[] totals;
+    private final int vocabularySize;
+    private final double alpha;
+
+    // By class and word id, for models without values
+    private final double[][] dense;
+
+    private transient volatile Smoothed smoothed;
+
+    /**
+     * @param vocabularySize number of words the smoothing is spread over,
+     *            usually <code>offsets.length - 1</code>
+     */
+    Likelihoods(int classCount, int[] offsets, byte[] classes, double[] values, double[] totals,
+            int vocabularySize, double alpha) {
+        if (!(alpha > 0)) { throw new IllegalArgumentException("alpha must be positive: " + alpha); }
+        this.classCount = classCount;
+        this.wordCount = offsets.length - 1;
+        this.offsets = offsets;
+        this.classes = classes;
+        this.values = values;
+        this.totals = totals;
+        this.vocabularySize = vocabularySize;
+        this.alpha = alpha;
+        this.dense = null;
+    }
+
+    /**
+     * @param dense log likelihoods by class and word id
+     */
+    Likelihoods(double[][] dense) {
+        classCount = dense.length;
+        wordCount = classCount > 0 ? dense[0].length : 0;
+        offsets = null;
+        classes = null;
+        values = null;
+        totals = null;
+        vocabularySize = wordCount;
+        alpha = Double.NaN;
+        this.dense = dense;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * @return number of words
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * @return <code>false</code> if only the likelihoods are known, so they
+     *         cannot be smoothed differently
+     */
+    public boolean hasValues() {
+        return dense == null;
+    }
+
+    /**
+     * @return smoothing constant, NaN if the model has no values
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @return the same values smoothed with another constant
+     */
+    public Likelihoods withAlpha(double newAlpha) {
+        if (!hasValues()) { throw new IllegalStateException("Model has no counts to smooth"); }
+        return new Likelihoods(classCount, offsets, classes, values, totals, vocabularySize, newAlpha);
+    }
+
+    public double get(int c, int id) {
+        if (dense != null) {
+            return dense[c][id];
+        }
+        Smoothed s = getSmoothed();
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            if (classes[e] == c) {
+                return s.logs[e];
+            }
+        }
+        return s.defaults[c];
+    }
+
+    /**
+     * Adds the likelihood of the word for each class to <code>scores</code>
+     */
+    public void addTo(double[] scores, int id) {
+        if (dense != null) {
+            for (int c = 0; c < classCount; c++) {
+                scores[c] += dense[c][id];
+            }
+            return;
+        }
+
+        Smoothed s = getSmoothed();
+        int e = offsets[id];
+        int end = offsets[id + 1];
+        for (int c = 0; c < classCount; c++) {
+            if (e < end && classes[e] == c) {
+                scores[c] += s.logs[e++];
+            }
+            else {
+                scores[c] += s.defaults[c];
+            }
+        }
+    }
+
+    /**
+     * @return log likelihoods by class and by word id, in a new table
+     */
+    public double[][] toArray() {
+        double[][] table = new double[classCount][wordCount];
+        for (int c = 0; c < classCount; c++) {
+            for (int id = 0; id < wordCount; id++) {
+                table[c][id] = get(c, id);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @param oldIds id in this table of each word to keep
+     * @return likelihoods of the kept words, unchanged
+     */
+    Likelihoods retain(int[] oldIds) {
+        if (dense != null) {
+            double[][] table = new double[classCount][oldIds.length];
+            for (int c = 0; c < classCount; c++) {
+                for (int id = 0; id < oldIds.length; id++) {
+                    table[c][id] = dense[c][oldIds[id]];
+                }
+            }
+            return new Likelihoods(table);
+        }
+
+        int[] newOffsets = new int[oldIds.length + 1];
+        for (int id = 0; id < oldIds.length; id++) {
+            newOffsets[id + 1] = newOffsets[id] + offsets[oldIds[id] + 1] - offsets[oldIds[id]];
+        }
+        byte[] newClasses = new byte[newOffsets[oldIds.length]];
+        double[] newValues = new double[newClasses.length];
+        for (int id = 0; id < oldIds.length; id++) {
+            int start = offsets[oldIds[id]];
+            int length = newOffsets[id + 1] - newOffsets[id];
+            System.arraycopy(classes, start, newClasses, newOffsets[id], length);
+            System.arraycopy(values, start, newValues, newOffsets[id], length);
+        }
+        // The smoothing still spreads over the whole vocabulary, so the likelihoods stay the same
+        return new Likelihoods(classCount, newOffsets, newClasses, newValues, totals, vocabularySize, alpha);
+    }
+
+    int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    double getTotal(int c) {
+        return totals[c];
+    }
+
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    byte[] getClasses() {
+        return classes;
+    }
+
+    double[] getValues() {
+        return values;
+    }
+
+    private Smoothed getSmoothed() {
+        Smoothed s = smoothed;
+        if (s == null) {
+            s = new Smoothed();
+            smoothed = s;
+        }
+        return s;
+    }
+
+    /**
+     * Builds the entries of a table, one word at a time in id order
+     */
+    static class Builder {
+
+        private final int classCount;
+        private final int[] offsets;
+        private byte[] classes = new byte[64];
+        private double[] values = new double[64];
+        private int wordCount = 0;
+
+        Builder(int classCount, int wordCount) {
+            this.classCount = classCount;
+            this.offsets = new int[wordCount + 1];
+        }
+
+        /**
+         * @param wordValues value of the next word for each class
+         */
+        void addWord(double[] wordValues) {
+            int size = offsets[wordCount];
+            if (size + classCount > classes.length) {
+                classes = Arrays.copyOf(classes, classes.length * 2);
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            for (int c = 0; c < classCount; c++) {
+                if (wordValues[c] != 0) {
+                    classes[size] = (byte) c;
+                    values[size] = wordValues[c];
+                    size++;
+                }
+            }
+            offsets[++wordCount] = size;
+        }
+
+        Likelihoods build(double[] totals, double alpha) {
+            int size = offsets[wordCount];
+            return new Likelihoods(classCount, offsets, Arrays.copyOf(classes, size), Arrays.copyOf(values, size),
+                    totals, wordCount, alpha);
+        }
+    }
+
+    // Likelihoods of the entries and the default of each class
+    private class Smoothed {
+
+        final double[] logs = new double[values.length];
+        final double[] defaults = new double[classCount];
+
+        Smoothed() {
+            double[] denominators = new double[classCount];
+            for (int c = 0; c < classCount; c++) {
+                denominators[c] = totals[c] + alpha * vocabularySize;
+                defaults[c] = Math.log(alpha / denominators[c]);
+            }
+            for (int e = 0; e < logs.length; e++) {
+                logs[e] = Math.log((values[e] + alpha) / denominators[classes[e]]);
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.lexicon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view of a model file mapped into memory, see {@link ModelFile}.
+ * Words are looked up by binary search over the string table and the
+ * likelihoods are read straight from the mapping. Sparse models calculate the
+ * likelihood of a (word, class) pair from its value when it is looked up.
+ */
+public class MappedModel {
+
+    private final ByteBuffer buffer;
+
+    private final int classCount;
+    private final int wordCount;
+
+    private final double[] priors;
+
+    private final boolean sparse;
+
+    private final IntBuffer offsets;
+    private final int stringsStart;
+
+    // Dense models: likelihoods of class c start at c * wordCount
+    private DoubleBuffer likelihoods;
+
+    // Sparse models: values of word id are entries entryOffsets[id] until entryOffsets[id + 1]
+    private double alpha;
+    private int vocabularySize;
+    private double[] totals;
+    private double[] denominators;
+    private double[] defaults;
+    private DoubleBuffer values;
+    private IntBuffer entryOffsets;
+    private int classesStart;
+
+    // Training counts follow the likelihoods, when the file has them
+    private final int statsStart;
+
+    /**
+     * @throws IOException if the counts of the file point past its end
+     */
+    MappedModel(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        classCount = buffer.getInt(8);
+        wordCount = buffer.getInt(12);
+        checkCount(classCount, "class count");
+        checkCount(wordCount, "word count");
+
+        sparse = buffer.getInt(4) == ModelFile.VERSION;
+        checkEnd(ModelFile.HEADER_SIZE + classCount * 8L + (sparse ? 16 + classCount * 8L : 0), "header");
+
+        priors = new double[classCount];
+        int position = ModelFile.HEADER_SIZE;
+        for (int c = 0; c < classCount; c++) {
+            priors[c] = buffer.getDouble(position);
+            position += 8;
+        }
+
+        int entryCount = 0;
+        if (sparse) {
+            alpha = buffer.getDouble(position);
+            vocabularySize = buffer.getInt(position + 8);
+            entryCount = buffer.getInt(position + 12);
+            checkCount(vocabularySize, "vocabulary size");
+            checkCount(entryCount, "entry count");
+            position += 16;
+
+            totals = new double[classCount];
+            denominators = new double[classCount];
+            defaults = new double[classCount];
+            for (int c = 0; c < classCount; c++) {
+                totals[c] = buffer.getDouble(position);
+                denominators[c] = totals[c] + alpha * vocabularySize;
+                defaults[c] = Math.log(alpha / denominators[c]);
+                position += 8;
+            }
+        }
+
+        checkEnd(position + (wordCount + 1L) * 4, "offset table");
+        offsets = slice(position, (wordCount + 1) * 4).asIntBuffer();
+        stringsStart = position + (wordCount + 1) * 4;
+
+        // Offsets of the single words are not checked, it would read the whole table
+        checkCount(offsets.get(wordCount), "string table size");
+        checkEnd((long) stringsStart + offsets.get(wordCount), "string table");
+        int dataStart = stringsStart + offsets.get(wordCount);
+        dataStart += (8 - dataStart % 8) % 8;
+        if (sparse) {
+            checkEnd(dataStart + entryCount * 9L + (wordCount + 1L) * 4, "sparse likelihoods");
+            values = slice(dataStart, entryCount * 8).asDoubleBuffer();
+            entryOffsets = slice(dataStart + entryCount * 8, (wordCount + 1) * 4).asIntBuffer();
+            classesStart = dataStart + entryCount * 8 + (wordCount + 1) * 4;
+            statsStart = classesStart + entryCount;
+            if (entryOffsets.get(wordCount) < 0 || entryOffsets.get(wordCount) > entryCount) {
+                throw new IOException("Damaged model file: entry offsets past the entry count");
+            }
+        }
+        else {
+            checkEnd(dataStart + (long) classCount * wordCount * 8, "likelihoods");
+            likelihoods = slice(dataStart, classCount * wordCount * 8).asDoubleBuffer();
+            statsStart = dataStart + classCount * wordCount * 8;
+        }
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * @return number of words
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * @return prior of the class, NaN if the model has none
+     */
+    public double getPrior(int c) {
+        return priors[c];
+    }
+
+    public double getLikelihood(int c, int id) {
+        if (!sparse) {
+            return likelihoods.get(c * wordCount + id);
+        }
+        for (int e = entryOffsets.get(id); e < entryOffsets.get(id + 1); e++) {
+            if (buffer.get(classesStart + e) == c) {
+                return Math.log((values.get(e) + alpha) / denominators[c]);
+            }
+        }
+        return defaults[c];
+    }
+
+    /**
+     * @return likelihoods copied to the heap, by the word ids of this model
+     */
+    public Likelihoods readLikelihoods() {
+        if (!sparse) {
+            double[][] table = new double[classCount][wordCount];
+            for (int c = 0; c < classCount; c++) {
+                DoubleBuffer classLikelihoods = likelihoods.duplicate();
+                classLikelihoods.position(c * wordCount);
+                classLikelihoods.get(table[c]);
+            }
+            return new Likelihoods(table);
+        }
+
+        int[] newOffsets = new int[wordCount + 1];
+        entryOffsets.duplicate().get(newOffsets);
+        double[] newValues = new double[values.capacity()];
+        values.duplicate().get(newValues);
+        byte[] newClasses = new byte[newValues.length];
+        for (int e = 0; e < newClasses.length; e++) {
+            newClasses[e] = buffer.get(classesStart + e);
+        }
+        return new Likelihoods(classCount, newOffsets, newClasses, newValues, totals.clone(), vocabularySize, alpha);
+    }
+
+    /**
+     * @return counts the model was trained from, <code>null</code> if the file
+     *         has none
+     */
+    public TrainingStats readTrainingStats() {
+        ByteBuffer stats = buffer.duplicate();
+        stats.position(statsStart);
+        return TrainingStats.read(stats);
+    }
+
+    public String getWord(int id) {
+        int start = offsets.get(id);
+        byte[] bytes = new byte[offsets.get(id + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(stringsStart + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return id of the word or -1 if it is not in the model
+     */
+    public int indexOf(String word) {
+        byte[] key = isAscii(word) ? null : word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = wordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = key == null ? compareAscii(mid, word) : compareBytes(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Compares the word at id with an ASCII string, whose chars are its UTF-8 bytes
+    private int compareAscii(int id, String word) {
+        int start = stringsStart + offsets.get(id);
+        int length = offsets.get(id + 1) - offsets.get(id);
+        int common = Math.min(length, word.length());
+        for (int i = 0; i < common; i++) {
+            int diff = (buffer.get(start + i) & 0xFF) - word.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - word.length();
+    }
+
+    private int compareBytes(int id, byte[] key) {
+        int start = stringsStart + offsets.get(id);
+        int length = offsets.get(id + 1) - offsets.get(id);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static void checkCount(int count, String name) throws IOException {
+        if (count < 0) {
+            throw new IOException("Damaged model file: negative " + name);
+        }
+    }
+
+    // In a long, since the counts of a damaged file can be anything
+    private void checkEnd(long end, String section) throws IOException {
+        if (end > buffer.limit()) {
+            throw new IOException("Damaged model file: " + section + " ends past the end of the file");
+        }
+    }
+
+    private ByteBuffer slice(int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+
+    private static boolean isAscii(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
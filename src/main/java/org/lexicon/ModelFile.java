@@ -0,0 +1,303 @@
+package org.lexicon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.data.Vocabulary;
+
+/**
+ * Binary file format of a {@link NaiveBayesClassifier} model. All numbers are
+ * big-endian. Models trained from counts are written sparse, keeping only the
+ * non-zero value of each (word, class) pair, see {@link Likelihoods}:
+ *
+ * <pre>
+ * int      magic "LXNB"
+ * int      version 2
+ * int      class count, in {@link Sentiment} order
+ * int      word count
+ * double[] prior of each class, NaN when missing
+ * double   smoothing constant
+ * int      vocabulary size the smoothing is spread over
+ * int      entry count
+ * double[] total of each class
+ * int[]    word count + 1 offsets into the string data
+ * byte[]   UTF-8 words sorted by their bytes, zero padded to a multiple of 8
+ * double[] value of each entry, by word and then by class
+ * int[]    word count + 1 offsets into the entries
+ * byte[]   class of each entry
+ * </pre>
+ *
+ * Models that only have likelihoods are written dense, as version 1:
+ *
+ * <pre>
+ * int      magic "LXNB"
+ * int      version 1
+ * int      class count, in {@link Sentiment} order
+ * int      word count
+ * double[] prior of each class, NaN when missing
+ * int[]    word count + 1 offsets into the string data
+ * byte[]   UTF-8 words sorted by their bytes, zero padded to a multiple of 8
+ * double[] log likelihoods of all words of the first class, then the next...
+ * </pre>
+ *
+ * Models trained by this version are followed by the counts they were trained
+ * from, see {@link TrainingStats}. Readers that do not need them ignore them:
+ *
+ * <pre>
+ * int      magic "LXS2"
+ * int      extraction scheme ordinal
+ * int      word count
+ * int[]    sentence count of each class
+ * words    each as an int byte length and its UTF-8 bytes, in id order
+ * counts   for each class, the counts of each word used by the scheme
+ * </pre>
+ *
+ * Models are read through {@link #open(String)}, which maps the file instead of
+ * reading it.
+ */
+public class ModelFile {
+
+    public static final int MAGIC = 0x4C584E42;
+
+    public static final int VERSION = 2;
+
+    public static final int DENSE_VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    // Serial version of the NaiveBayesClassifier that stored likelihoods in a HashMap
+    private static final long LEGACY_SERIAL_VERSION = 8707384910244268938L;
+
+    // static methods only
+    private ModelFile() {}
+
+    public static void write(NaiveBayesClassifier classifier, String file) throws IOException {
+        Map<Sentiment, Double> priorMap = classifier.getPriorMap();
+        Vocabulary vocabulary = classifier.getVocabulary();
+        Likelihoods likelihoods = classifier.getLikelihoodTable();
+        Sentiment[] sentiments = Sentiment.values();
+
+        byte[][] words = new byte[vocabulary.size()][];
+        Integer[] order = new Integer[vocabulary.size()];
+        for (int id = 0; id < words.length; id++) {
+            words[id] = vocabulary.getWord(id).getBytes(StandardCharsets.UTF_8);
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> compare(words[a], words[b]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(likelihoods.hasValues() ? VERSION : DENSE_VERSION);
+            out.writeInt(sentiments.length);
+            out.writeInt(words.length);
+            for (Sentiment sentiment : sentiments) {
+                Double prior = priorMap.get(sentiment);
+                out.writeDouble(prior != null ? prior : Double.NaN);
+            }
+            if (likelihoods.hasValues()) {
+                out.writeDouble(likelihoods.getAlpha());
+                out.writeInt(likelihoods.getVocabularySize());
+                out.writeInt(likelihoods.getValues().length);
+                for (int c = 0; c < sentiments.length; c++) {
+                    out.writeDouble(likelihoods.getTotal(c));
+                }
+            }
+
+            int offset = 0;
+            out.writeInt(offset);
+            for (int id : order) {
+                offset += words[id].length;
+                out.writeInt(offset);
+            }
+            for (int id : order) {
+                out.write(words[id]);
+            }
+            for (int i = out.size(); i % 8 != 0; i++) {
+                out.writeByte(0);
+            }
+
+            if (likelihoods.hasValues()) {
+                writeEntries(out, likelihoods, order);
+            }
+            else {
+                for (int c = 0; c < sentiments.length; c++) {
+                    for (int id : order) {
+                        out.writeDouble(likelihoods.get(c, id));
+                    }
+                }
+            }
+
+            TrainingStats stats = classifier.getTrainingStats();
+            if (stats != null) {
+                stats.write(out);
+            }
+        }
+    }
+
+    // Values, offsets and classes of the entries, with the words in file order
+    private static void writeEntries(DataOutputStream out, Likelihoods likelihoods, Integer[] order)
+            throws IOException {
+        int[] offsets = likelihoods.getOffsets();
+        byte[] classes = likelihoods.getClasses();
+        double[] values = likelihoods.getValues();
+        for (int id : order) {
+            for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+                out.writeDouble(values[e]);
+            }
+        }
+
+        int offset = 0;
+        out.writeInt(offset);
+        for (int id : order) {
+            offset += offsets[id + 1] - offsets[id];
+            out.writeInt(offset);
+        }
+        for (int id : order) {
+            out.write(classes, offsets[id], offsets[id + 1] - offsets[id]);
+        }
+    }
+
+    public static MappedModel open(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a model file: " + file);
+            }
+            if (buffer.getInt(4) != VERSION && buffer.getInt(4) != DENSE_VERSION) {
+                throw new IOException("Unsupported model file version " + buffer.getInt(4) + ": " + file);
+            }
+            if (buffer.getInt(8) != Sentiment.values().length) {
+                throw new IOException("Model file has " + buffer.getInt(8) + " classes: " + file);
+            }
+            return new MappedModel(buffer);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the file starts like a binary model file
+     */
+    public static boolean isModelFile(String file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a model written with Java serialization, either by the current
+     * {@link NaiveBayesClassifier} or by the one that stored its likelihoods in
+     * a map.
+     */
+    public static NaiveBayesClassifier readSerialized(String file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new LegacyInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            Object model = in.readObject();
+            if (model instanceof LegacyModel) {
+                return ((LegacyModel) model).toClassifier();
+            }
+            return (NaiveBayesClassifier) model;
+        }
+    }
+
+    /**
+     * Converts a model written with Java serialization to the binary format
+     */
+    public static boolean convert(String serializedFile, String file) {
+        try {
+            write(readSerialized(serializedFile), file);
+        }
+        catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    // Unsigned lexicographic order
+    static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Fields of the old NaiveBayesClassifier, which the stream is read into
+     */
+    private static class LegacyModel implements Serializable {
+
+        private static final long serialVersionUID = LEGACY_SERIAL_VERSION;
+
+        private Map<Sentiment, Double> priorMap;
+
+        private Map<AnnotatedText, Double> likelihoodMap;
+
+        private Set<String> vocabulary;
+
+        NaiveBayesClassifier toClassifier() {
+            Sentiment[] sentiments = Sentiment.values();
+
+            // Words without a likelihood for every class could not be scored by the old model
+            Vocabulary newVocabulary = new Vocabulary(vocabulary.size());
+            for (String word : vocabulary) {
+                boolean complete = true;
+                for (Sentiment sentiment : sentiments) {
+                    complete &= likelihoodMap.containsKey(new AnnotatedText(word, sentiment));
+                }
+                if (complete) {
+                    newVocabulary.add(word);
+                }
+            }
+
+            double[][] likelihoods = new double[sentiments.length][newVocabulary.size()];
+            for (Sentiment sentiment : sentiments) {
+                for (int id = 0; id < newVocabulary.size(); id++) {
+                    AnnotatedText key = new AnnotatedText(newVocabulary.getWord(id), sentiment);
+                    likelihoods[sentiment.ordinal()][id] = likelihoodMap.get(key);
+                }
+            }
+            return new NaiveBayesClassifier(priorMap, newVocabulary, likelihoods);
+        }
+    }
+
+    private static class LegacyInputStream extends ObjectInputStream {
+
+        LegacyInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass descriptor = super.readClassDescriptor();
+            if (descriptor.getName().equals(NaiveBayesClassifier.class.getName())
+                    && descriptor.getSerialVersionUID() == LEGACY_SERIAL_VERSION) {
+                return ObjectStreamClass.lookup(LegacyModel.class);
+            }
+            return descriptor;
+        }
+    }
+}
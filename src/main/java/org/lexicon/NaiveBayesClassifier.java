@@ -1,85 +1,185 @@
 package org.lexicon;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.lexicon.data.AnnotatedText;
 import org.lexicon.data.Document;
+import org.lexicon.data.TokenizedCorpus;
+import org.lexicon.data.Vocabulary;
 import org.lexicon.process.DataProcessor;
-import org.lexicon.util.ProgressBar;
+import org.lexicon.util.Metrics;
 
 public class NaiveBayesClassifier implements Serializable {
 
-    private static final long serialVersionUID = 8707384910244268938L;
+    private static final long serialVersionUID = -3190463468342613544L;
 
     public static final String DEFAULT_MODEL_FILE = "./files/classifier.model";
 
-    private Map<Sentiment, Double> priorMap;
+    // Replaced as a whole, so predict() reads a vocabulary and likelihoods that belong together
+    private volatile Model model;
 
-    private Map<AnnotatedText, Double> likelihoodMap;
+    // Counts the likelihoods are calculated from; null for models saved by older versions
+    private TrainingStats stats;
 
-    private Set<String> vocabulary;
+    // Set by update() until the likelihoods are calculated again
+    private transient volatile boolean stale;
+
+    // Words added by update() that are not yet in the vocabulary
+    private transient Set<String> newWords;
 
     public NaiveBayesClassifier() {
-        priorMap = new HashMap<>();
-        likelihoodMap = new HashMap<>();
-        vocabulary = new HashSet<>();
+        model = new Model(new HashMap<>(), new Vocabulary(),
+                new Likelihoods(new double[Sentiment.values().length][0]), null);
+    }
+
+    NaiveBayesClassifier(Map<Sentiment, Double> priorMap, Vocabulary vocabulary, double[][] likelihoods) {
+        model = new Model(priorMap, vocabulary, new Likelihoods(likelihoods), null);
+    }
+
+    /**
+     * Creates a model from counts, with every counted word in its vocabulary
+     */
+    NaiveBayesClassifier(TrainingStats stats) {
+        this.stats = stats;
+        calculateLikelihoods(copy(stats.getWords()), Likelihoods.DEFAULT_ALPHA);
+    }
+
+    NaiveBayesClassifier(MappedModel mappedModel) {
+        Map<Sentiment, Double> priorMap = new HashMap<>();
+        for (Sentiment sentiment : Sentiment.values()) {
+            double prior = mappedModel.getPrior(sentiment.ordinal());
+            if (!Double.isNaN(prior)) {
+                priorMap.put(sentiment, prior);
+            }
+        }
+        model = new Model(priorMap, null, null, mappedModel);
     }
 
     public Map<Sentiment, Double> getPriorMap() {
-        return priorMap;
+        if (stale) {
+            unmap();
+        }
+        return model.priorMap;
+    }
+
+    /**
+     * @return log likelihoods by sentiment ordinal and word id, in a new table
+     */
+    public double[][] getLikelihoods() {
+        return unmap().likelihoods.toArray();
+    }
+
+    Likelihoods getLikelihoodTable() {
+        return unmap().likelihoods;
     }
 
-    public Map<AnnotatedText, Double> getLikelihoodMap() {
-        return likelihoodMap;
+    public double getLikelihood(String word, Sentiment sentiment) {
+        Model current = unmap();
+        int id = current.vocabulary.indexOf(word);
+        if (id < 0) { throw new IllegalArgumentException("Word not in vocabulary: " + word); }
+        return current.likelihoods.get(sentiment.ordinal(), id);
     }
 
-    public Set<String> getVocabulary() {
-        return vocabulary;
+    /**
+     * @return the Laplace smoothing constant, NaN if the model only has its
+     *         likelihoods
+     */
+    public double getSmoothing() {
+        return unmap().likelihoods.getAlpha();
     }
 
+    /**
+     * Smooths the likelihoods with another constant, without training again
+     *
+     * @throws IllegalStateException if the model only has its likelihoods,
+     *             like the models saved by older versions
+     */
+    public synchronized void setSmoothing(double alpha) {
+        Model current = unmap();
+        model = new Model(current.priorMap, current.vocabulary, current.likelihoods.withAlpha(alpha), null);
+    }
+
+    public Vocabulary getVocabulary() {
+        return unmap().vocabulary;
+    }
 
-    public void setPriorMap(Map<Sentiment, Double> newPriorMap) {
-        priorMap = newPriorMap;
+    /**
+     * Copies a mapped model to the heap, where it can be changed, and applies
+     * updates
+     *
+     * @return the model after that
+     */
+    private synchronized Model unmap() {
+        Model current = model;
+        if (current.mapped == null) {
+            if (stale) {
+                calculateLikelihoods(current.vocabulary, getAlpha(current));
+            }
+            return model;
+        }
+        MappedModel mapped = current.mapped;
+        Vocabulary newVocabulary = new Vocabulary(mapped.size());
+        for (int id = 0; id < mapped.size(); id++) {
+            newVocabulary.add(mapped.getWord(id));
+        }
+        stats = mapped.readTrainingStats();
+        model = new Model(current.priorMap, newVocabulary, mapped.readLikelihoods(), null);
+        return model;
     }
 
-    public void setLikelihoodMap(Map<AnnotatedText, Double> newLikelihoodMap) {
-        likelihoodMap = newLikelihoodMap;
+    public synchronized void setPriorMap(Map<Sentiment, Double> newPriorMap) {
+        Model current = model;
+        model = new Model(newPriorMap, current.vocabulary, current.likelihoods, current.mapped);
     }
 
-    public void setVocabulary(Set<String> newVocabulary) {
-        vocabulary = newVocabulary;
+    /**
+     * Removes every word that is not in <code>features</code> from the model,
+     * keeping the likelihoods of the remaining words as they are.
+     */
+    public synchronized void retainFeatures(Set<String> features) {
+        Model current = unmap();
+        Vocabulary newVocabulary = new Vocabulary(features.size());
+        int[] oldIds = new int[current.vocabulary.size()];
+        for (int id = 0; id < current.vocabulary.size(); id++) {
+            String word = current.vocabulary.getWord(id);
+            if (features.contains(word)) {
+                oldIds[newVocabulary.add(word)] = id;
+            }
+        }
+        Likelihoods newLikelihoods = current.likelihoods.retain(Arrays.copyOf(oldIds, newVocabulary.size()));
+        model = new Model(current.priorMap, newVocabulary, newLikelihoods, null);
     }
 
+    /**
+     * Loads a model file, or a model written with Java serialization by older
+     * versions
+     */
     public static NaiveBayesClassifier loadModel(String file) {
-        NaiveBayesClassifier model;
         try {
-            ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
-            model = (NaiveBayesClassifier) in.readObject();
-            in.close();
+            if (ModelFile.isModelFile(file)) {
+                return new NaiveBayesClassifier(ModelFile.open(file));
+            }
+            else {
+                return ModelFile.readSerialized(file);
+            }
         }
         catch (Exception e) {
             e.printStackTrace();
             return null;
         }
-        return model;
     }
 
     public boolean writeModel(String file) {
         try {
-            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
-            out.writeObject(this);
-            out.close();
+            ModelFile.write(this, file);
         }
         catch (IOException e) {
             e.printStackTrace();
@@ -88,175 +188,145 @@ public class NaiveBayesClassifier implements Serializable {
         return true;
     }
 
+    /**
+     * Trains the model from scratch, keeping the counts that
+     * {@link #update(Iterable)} adds to
+     */
     public void train(Document trainingDocument, ExtractionScheme featureMethod) {
-        int docCount = trainingDocument.getData().size();
-        System.out.println("Building vocabulary list...");
-        vocabulary = trainingDocument.getVocabulary();
-
-        System.out.println("Vocabulary: " + vocabulary.size());
-        System.out.println("Building knowledge base...");
-        for (Sentiment sentiment : Sentiment.values()) {
-            int docCountForClass = trainingDocument.getSentenceCountMap().get(sentiment);
-            double prior = (double) docCountForClass / docCount;
-            priorMap.put(sentiment, prior);
-        }
-
-        if (featureMethod == ExtractionScheme.TO) {
-            ProgressBar bar = new ProgressBar(vocabulary.size() * Sentiment.values().length);
+        train(trainingDocument, featureMethod, BatchTrainer.DEFAULT_THREADS);
+    }
 
-            for (Sentiment sentiment : Sentiment.values()) {
-                List<String> wordsByClass = trainingDocument.getWordListMap().get(sentiment);
-                for (String word : vocabulary) {
-                    int wordCount = countWord(wordsByClass, word);
-                    double condProb = calculateCondProb(wordCount, wordsByClass.size());
-                    likelihoodMap.put(new AnnotatedText(word, sentiment), condProb);
-                    bar.step();
-                }
+    /**
+     * @param threads number of threads that count the sentences; the model is
+     *            the same for any number
+     */
+    public void train(Document trainingDocument, ExtractionScheme featureMethod, int threads) {
+        try (Metrics.Phase phase = Metrics.startPhase("train")) {
+            System.out.println("Building vocabulary list...");
+            Vocabulary newVocabulary = new Vocabulary(trainingDocument.getVocabulary());
+            System.out.println("Vocabulary: " + newVocabulary.size());
+
+            System.out.println("Building knowledge base...");
+            TokenizedCorpus corpus = trainingDocument.getTokenizedCorpus();
+            TrainingStats newStats = new BatchTrainer(threads).count(corpus, featureMethod);
+
+            synchronized (this) {
+                stats = newStats;
+                newWords = null;
+                calculateLikelihoods(newVocabulary, getAlpha(model));
             }
+            phase.addItems(corpus.size());
         }
-        else if (featureMethod == ExtractionScheme.TF) {
-            ProgressBar bar = new ProgressBar(vocabulary.size() * Sentiment.values().length + trainingDocument.getData().size());
-
-            Map<String, Map<Sentiment, Double>> tfBySentimentMap = new HashMap<>();
-            Map<Sentiment, Double> totalTfBySentimentMap = new HashMap<>();
-            totalTfBySentimentMap.put(Sentiment.POSITIVE, 0.0);
-            totalTfBySentimentMap.put(Sentiment.NEGATIVE, 0.0);
-            totalTfBySentimentMap.put(Sentiment.NEUTRAL, 0.0);
-            for (AnnotatedText text : trainingDocument.getData()) {
-                List<String> words = DataProcessor.preprocess(text.getText(), true);
-                Set<String> uniqueWords = new HashSet<>(words);
-                Sentiment sentiment = text.getCategory();
-
-                for (String word : uniqueWords) {
-                    if (!tfBySentimentMap.containsKey(word)) {
-                        Map<Sentiment, Double> tfMap = new HashMap<>();
-                        tfMap.put(Sentiment.POSITIVE, 0.0);
-                        tfMap.put(Sentiment.NEGATIVE, 0.0);
-                        tfMap.put(Sentiment.NEUTRAL, 0.0);
-                        tfBySentimentMap.put(word, tfMap);
-                    }
-
-                    double tf = tfBySentimentMap.get(word).get(sentiment);
-                    tf += calculateTermFrequency(word, words);
-                    // System.out.println(tf);
-                    tfBySentimentMap.get(word).put(sentiment, tf);
+    }
 
-                    double totalTf = totalTfBySentimentMap.get(sentiment);
-                    totalTfBySentimentMap.put(sentiment, totalTf + tf);
-                }
-                bar.step();
-            }
-            for (Sentiment sentiment : Sentiment.values()) {
-                for (String word : vocabulary) {
-                    double wordTf = tfBySentimentMap.get(word).get(sentiment);
-                    double condProb = calculateCondProb(wordTf, totalTfBySentimentMap.get(sentiment));
-                    likelihoodMap.put(new AnnotatedText(word, sentiment), condProb);
-                    bar.step();
-                }
-            }
+    /**
+     * Adds labelled sentences to the model without going through the ones it
+     * was trained with. Words that are not in the vocabulary are added to it,
+     * so a model trained without feature selection ends up the same as one
+     * trained on all of the sentences in order. The likelihoods are
+     * calculated again when they are next used.
+     *
+     * @throws IllegalStateException if the model has no training counts, like
+     *             the models saved by older versions
+     */
+    public synchronized void update(Iterable<AnnotatedText> sentences) {
+        Vocabulary vocabulary = unmap().vocabulary;
+        if (stats == null) { throw new IllegalStateException("Model has no training counts; train it again"); }
+
+        if (newWords == null) {
+            newWords = new LinkedHashSet<>();
         }
-        else if (featureMethod == ExtractionScheme.TFIDF) {
-            ProgressBar bar = new ProgressBar(vocabulary.size() * Sentiment.values().length + trainingDocument.getData().size());
-
-            // Count each word on documents, to be used for getting idf
-            Map<String, Map<Sentiment, Integer>> wordCountBySentimentMap = new HashMap<>();
-            for (AnnotatedText text : trainingDocument.getData()) {
-                List<String> words = DataProcessor.preprocess(text.getText(), true);
-                Set<String> uniqueWords = new HashSet<>(words);
-                Sentiment sentiment = text.getCategory();
-
-                for (String word : uniqueWords) {
-                    if (!wordCountBySentimentMap.containsKey(word)) {
-                        Map<Sentiment, Integer> countMap = new HashMap<>();
-                        countMap.put(Sentiment.POSITIVE, 0);
-                        countMap.put(Sentiment.NEGATIVE, 0);
-                        countMap.put(Sentiment.NEUTRAL, 0);
-                        wordCountBySentimentMap.put(word, countMap);
-                    }
-
-                    int count = wordCountBySentimentMap.get(word).get(sentiment) + 1;
-                    wordCountBySentimentMap.get(word).put(sentiment, count);
+        for (AnnotatedText sentence : sentences) {
+            List<String> words = DataProcessor.preprocess(sentence.getText());
+            stats.add(words, sentence.getCategory());
+            for (String word : words) {
+                if (!vocabulary.contains(word)) {
+                    newWords.add(word);
                 }
             }
+        }
+        stale = true;
+    }
 
-            // Get total TF-IDFs for word and for class
-            Map<String, Map<Sentiment, Double>> totalTfidfByWordMap = new HashMap<>();
-            Map<Sentiment, Double> totalTfidfBySentimentMap = new HashMap<>();
-            totalTfidfBySentimentMap.put(Sentiment.POSITIVE, 0.0);
-            totalTfidfBySentimentMap.put(Sentiment.NEGATIVE, 0.0);
-            totalTfidfBySentimentMap.put(Sentiment.NEUTRAL, 0.0);
-            for (AnnotatedText text : trainingDocument.getData()) {
-                List<String> words = DataProcessor.preprocess(text.getText(), true);
-                Set<String> uniqueWords = new HashSet<>(words);
-                Sentiment sentiment = text.getCategory();
-
-                for (String word : uniqueWords) {
-                    if (!totalTfidfByWordMap.containsKey(word)) {
-                        Map<Sentiment, Double> tfidfMap = new HashMap<>();
-                        tfidfMap.put(Sentiment.POSITIVE, 0.0);
-                        tfidfMap.put(Sentiment.NEGATIVE, 0.0);
-                        tfidfMap.put(Sentiment.NEUTRAL, 0.0);
-                        totalTfidfByWordMap.put(word, tfidfMap);
-                    }
-                    int sentenceCountInClass = trainingDocument.getSentenceCountMap().get(sentiment);
+    synchronized TrainingStats getTrainingStats() {
+        unmap();
+        return stats;
+    }
 
-                    double tfidf = totalTfidfByWordMap.get(word).get(sentiment);
-                    tfidf += calculateTermFrequency(word, words) * calculateIDF(sentenceCountInClass, wordCountBySentimentMap.get(word).get(sentiment));
-                    // System.out.println(tf);
-                    totalTfidfByWordMap.get(word).put(sentiment, tfidf);
+    // Smoothing of the current likelihoods, which training again keeps
+    private static double getAlpha(Model current) {
+        return current.likelihoods != null && current.likelihoods.hasValues() ? current.likelihoods.getAlpha()
+                : Likelihoods.DEFAULT_ALPHA;
+    }
 
-                    double totalTfidf = totalTfidfBySentimentMap.get(sentiment);
-                    totalTfidfBySentimentMap.put(sentiment, totalTfidf + tfidf);
-                }
-                bar.step();
-            }
-            for (Sentiment sentiment : Sentiment.values()) {
-                for (String word : vocabulary) {
-                    double wordTf = totalTfidfByWordMap.get(word).get(sentiment);
-                    double condProb = calculateCondProb(wordTf, totalTfidfBySentimentMap.get(sentiment));
-                    likelihoodMap.put(new AnnotatedText(word, sentiment), condProb);
-                    bar.step();
-                }
+    // Calculates the priors and likelihoods from the counts, for the words and the ones added by update()
+    private void calculateLikelihoods(Vocabulary vocabulary, double alpha) {
+        Vocabulary newVocabulary = vocabulary;
+        if (newWords != null && !newWords.isEmpty()) {
+            newVocabulary = copy(vocabulary);
+            for (String word : newWords) {
+                newVocabulary.add(word);
             }
         }
-    }
 
-    private double calculateTermFrequency(String word, List<String> document) {
-        int termCount = 0;
-        for (String term : document) {
-            if (word.equals(term)) {
-                termCount++;
+        try (Metrics.Phase phase = Metrics.startPhase("train.likelihoods")) {
+            Map<Sentiment, Double> newPriorMap = new HashMap<>();
+            for (Sentiment sentiment : Sentiment.values()) {
+                newPriorMap.put(sentiment, (double) stats.getSentenceCount(sentiment) / stats.getSentenceCount());
             }
+            Likelihoods newLikelihoods = stats.createLikelihoods(newVocabulary, alpha);
+            phase.addItems(newLikelihoods.getClassCount() * newVocabulary.size());
+            model = new Model(newPriorMap, newVocabulary, newLikelihoods, null);
         }
-        return (double) (termCount + 1) / document.size();
+        newWords = null;
+        stale = false;
     }
 
-    private double calculateIDF(int documentSize, int termCount ) {
-        return Math.log((double) documentSize / termCount);
-    }
-
-    private double calculateCondProb(double wordCount, double wordsByClassCount) {
-        return Math.log((wordCount + 1) / (wordsByClassCount + vocabulary.size()));
+    static Vocabulary copy(Vocabulary vocabulary) {
+        Vocabulary copy = new Vocabulary(vocabulary.size());
+        for (int id = 0; id < vocabulary.size(); id++) {
+            copy.add(vocabulary.getWord(id));
+        }
+        return copy;
     }
 
     public Sentiment predict(String sentence) {
+        if (stale) {
+            unmap();
+        }
         List<String> tokens = DataProcessor.preprocess(sentence);
+        Sentiment[] sentiments = Sentiment.values();
+        Model current = model;
 
-        Sentiment maxSentiment = null;
-        double maxScore = Double.NEGATIVE_INFINITY;
+        double[] scores = new double[sentiments.length];
+        for (int c = 0; c < sentiments.length; c++) {
+            scores[c] = Math.log(current.priorMap.get(sentiments[c]));
+        }
 
-        for (Sentiment sentiment : Sentiment.values()) {
-            double score = Math.log(priorMap.get(sentiment));
-            for (String token : tokens) {
-                if (vocabulary.contains(token)) {
-                    Double likelihood = likelihoodMap.get(new AnnotatedText(token, sentiment));
-                    score += likelihood;
+        MappedModel mapped = current.mapped;
+        for (String token : tokens) {
+            if (mapped != null) {
+                int id = mapped.indexOf(token);
+                if (id >= 0) {
+                    for (int c = 0; c < sentiments.length; c++) {
+                        scores[c] += mapped.getLikelihood(c, id);
+                    }
+                }
+            }
+            else {
+                int id = current.vocabulary.indexOf(token);
+                if (id >= 0) {
+                    current.likelihoods.addTo(scores, id);
                 }
             }
+        }
 
-            if (maxScore < score) {
-                maxSentiment = sentiment;
-                maxScore = score;
+        Sentiment maxSentiment = null;
+        double maxScore = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < sentiments.length; c++) {
+            if (maxScore < scores[c]) {
+                maxSentiment = sentiments[c];
+                maxScore = scores[c];
             }
         }
 
@@ -264,23 +334,42 @@ public class NaiveBayesClassifier implements Serializable {
     }
 
     public TestResult test(Document testDocument) {
-        Map<AnnotatedText, Sentiment> result = new LinkedHashMap<>();
-        ProgressBar bar = new ProgressBar(testDocument.getData().size());
-        for (AnnotatedText sentence : testDocument.getData()) {
-            Sentiment prediction = predict(sentence.getText());
-            result.put(sentence, prediction);
-            bar.step();
-        }
-        return new TestResult(result);
+        return test(testDocument, BatchTester.DEFAULT_THREADS);
     }
 
-    private int countWord(List<String> wordList, String wordToFind) {
-        int count = 0;
-        for (String word : wordList) {
-            if (word.equals(wordToFind)) {
-                count++;
-            }
+    public TestResult test(Document testDocument, int threads) {
+        return test(testDocument, threads, null);
+    }
+
+    /**
+     * @param listener
+     *            Receives each sentence with its prediction in input order, see {@link BatchTester}
+     */
+    public TestResult test(Document testDocument, int threads, BiConsumer<AnnotatedText, Sentiment> listener) {
+        return new BatchTester(threads).test(testDocument, this::predict, listener);
+    }
+
+    /**
+     * Priors, vocabulary and likelihoods of the classifier, which are not
+     * changed once the model is published; the vocabulary and likelihoods are
+     * <code>null</code> while a model file is still mapped
+     */
+    private static class Model implements Serializable {
+
+        private static final long serialVersionUID = 6004527516925040431L;
+
+        final Map<Sentiment, Double> priorMap;
+        final Vocabulary vocabulary;
+        final Likelihoods likelihoods;
+
+        // Set when the model was loaded from a model file, until the fields above are needed
+        final transient MappedModel mapped;
+
+        Model(Map<Sentiment, Double> priorMap, Vocabulary vocabulary, Likelihoods likelihoods, MappedModel mapped) {
+            this.priorMap = priorMap;
+            this.vocabulary = vocabulary;
+            this.likelihoods = likelihoods;
+            this.mapped = mapped;
         }
-        return count;
     }
 }
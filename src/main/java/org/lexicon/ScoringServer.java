@@ -0,0 +1,241 @@
+package org.lexicon;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.lexicon.util.Metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Classifies sentences over HTTP with a model that stays loaded between
+ * requests. Each request is a batch: a <code>POST /classify</code> body has
+ * one sentence per line, and the response has the prediction of each line in
+ * the same order. <code>GET /health</code> answers <code>OK</code>.
+ *
+ * Requests run on a fixed number of worker threads with a bounded queue; when
+ * the queue is full the server stops accepting connections until a worker is
+ * free, instead of queueing without limit. A request body is limited both in
+ * lines and in bytes.
+ */
+public class ScoringServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+    public static final int DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+
+    // Unread body bytes discarded before an error response, so the client gets the status
+    private static final int DRAIN_LIMIT = 1024 * 1024;
+
+    private final Function<String, Sentiment> classifier;
+    private final int threads;
+    private final int maxBatchSize;
+    private final int maxBodySize;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private HttpServer server;
+    private ThreadPoolExecutor pool;
+
+    /**
+     * @param classifier
+     *            Returns the prediction for a sentence; must be safe to call from several threads
+     */
+    public ScoringServer(Function<String, Sentiment> classifier, int threads, int maxBatchSize) {
+        this(classifier, threads, maxBatchSize, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param maxBodySize
+     *            Largest request body in bytes
+     */
+    public ScoringServer(Function<String, Sentiment> classifier, int threads, int maxBatchSize, int maxBodySize) {
+        if (threads < 1) { throw new IllegalArgumentException("threads must be at least 1: " + threads); }
+        if (maxBatchSize < 1) { throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize); }
+        if (maxBodySize < 1) { throw new IllegalArgumentException("maxBodySize must be at least 1: " + maxBodySize); }
+        this.classifier = classifier;
+        this.threads = threads;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * @param address port 0 picks a free port
+     * @return address the server listens on
+     */
+    public synchronized InetSocketAddress start(InetSocketAddress address) throws IOException {
+        if (server != null) { throw new IllegalStateException("Server already started"); }
+
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+        server = HttpServer.create(address, 0);
+        server.setExecutor(pool);
+        server.createContext("/classify", this::handleClassify);
+        server.createContext("/health", this::handleHealth);
+        server.start();
+        return server.getAddress();
+    }
+
+    /**
+     * Stops accepting requests and waits for the running ones to finish
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            pool.shutdown();
+            server = null;
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Blocks until {@link #stop()} is called
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * @return prediction of each sentence, in the same order
+     */
+    public List<Sentiment> classify(List<String> sentences) {
+        Metrics.Histogram latency = Metrics.histogram("predict.latencyNanos");
+        List<Sentiment> predictions = new ArrayList<>(sentences.size());
+        try (Metrics.Phase phase = Metrics.startPhase("serve.batch")) {
+            for (String sentence : sentences) {
+                long start = System.nanoTime();
+                predictions.add(classifier.apply(sentence));
+                latency.record(System.nanoTime() - start);
+            }
+            phase.addItems(sentences.size());
+        }
+        return predictions;
+    }
+
+    private void handleClassify(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "Use POST with one sentence per line\n");
+                return;
+            }
+
+            InputStream body = exchange.getRequestBody();
+            List<String> sentences = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new LimitedInputStream(body, maxBodySize), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (sentences.size() == maxBatchSize) {
+                        reject(exchange, body, "At most " + maxBatchSize + " sentences per request\n");
+                        return;
+                    }
+                    sentences.add(line);
+                }
+            }
+            catch (BodyTooLargeException e) {
+                reject(exchange, body, "At most " + maxBodySize + " bytes per request\n");
+                return;
+            }
+
+            StringBuilder response = new StringBuilder();
+            for (Sentiment prediction : classify(sentences)) {
+                response.append(prediction).append('\n');
+            }
+            send(exchange, 200, response.toString());
+        }
+        catch (RuntimeException e) {
+            e.printStackTrace();
+            send(exchange, 500, "Problem found when classifying: " + e + "\n");
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, "OK\n");
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    // Reads what is left of the body first, or a client still sending it would get a reset instead of the status
+    private static void reject(HttpExchange exchange, InputStream body, String message) throws IOException {
+        byte[] buffer = new byte[8192];
+        int drained = 0;
+        int read;
+        while (drained < DRAIN_LIMIT
+                && (read = body.read(buffer, 0, Math.min(buffer.length, DRAIN_LIMIT - drained))) != -1) {
+            drained += read;
+        }
+        send(exchange, 413, message);
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static class BodyTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    // Throws once more than the limit has been read
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count = 0;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws BodyTooLargeException {
+            count += read;
+            if (count > limit) { throw new BodyTooLargeException(); }
+        }
+    }
+}
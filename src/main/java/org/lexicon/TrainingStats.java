@@ -0,0 +1,343 @@
+package org.lexicon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.lexicon.data.Vocabulary;
+
+/**
+ * Counts that the likelihoods of a {@link NaiveBayesClassifier} are calculated
+ * from, so sentences can be added to a model without going through the ones
+ * it was trained with. What is kept for each word and class depends on the
+ * extraction scheme:
+ *
+ * <pre>
+ * TO       number of occurrences
+ * TF       sum of the term frequencies and the sum of its partial sums
+ * TFIDF    number of sentences with the word, sum of the term frequencies
+ *          and the sum of its partial sums
+ * </pre>
+ *
+ * Words are counted whether or not they are in the vocabulary of the model.
+ * The sums of each word only depend on the order of the sentences with that
+ * word, so the words can be counted on separate threads, see
+ * {@link BatchTrainer}, and adding the same sentences in the same order
+ * always gives the same sums.
+ */
+public class TrainingStats implements Serializable {
+
+    private static final long serialVersionUID = 3950214462376329414L;
+
+    static final int MAGIC = 0x4C585332;
+
+    private final ExtractionScheme scheme;
+
+    private final Vocabulary words;
+
+    private final int[] sentenceCounts;
+
+    // By class and word id: occurrences (TO) or sentences with the word (TFIDF)
+    private int[][] counts;
+
+    // By class and word id: sums of term frequencies (TF, TFIDF)
+    private double[][] sums;
+
+    // By class and word id: sum of the values sums had after each sentence (TF, TFIDF)
+    private double[][] partialSums;
+
+    public TrainingStats(ExtractionScheme scheme) {
+        this(scheme, new Vocabulary());
+    }
+
+    /**
+     * @param words initial word list, so ids can be shared with it; words are
+     *            added to it as sentences are added
+     */
+    TrainingStats(ExtractionScheme scheme, Vocabulary words) {
+        int classCount = Sentiment.values().length;
+        int capacity = Math.max(words.size(), 16);
+        this.scheme = scheme;
+        this.words = words;
+        sentenceCounts = new int[classCount];
+        if (scheme != ExtractionScheme.TF) {
+            counts = new int[classCount][capacity];
+        }
+        if (scheme != ExtractionScheme.TO) {
+            sums = new double[classCount][capacity];
+            partialSums = new double[classCount][capacity];
+        }
+    }
+
+    public ExtractionScheme getScheme() {
+        return scheme;
+    }
+
+    public Vocabulary getWords() {
+        return words;
+    }
+
+    public int getSentenceCount(Sentiment sentiment) {
+        return sentenceCounts[sentiment.ordinal()];
+    }
+
+    public int getSentenceCount() {
+        int count = 0;
+        for (int sentenceCount : sentenceCounts) {
+            count += sentenceCount;
+        }
+        return count;
+    }
+
+    /**
+     * Counts the words of a preprocessed sentence
+     */
+    public void add(List<String> sentence, Sentiment sentiment) {
+        int[] ids = new int[sentence.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = words.add(sentence.get(i));
+        }
+        add(ids, sentiment);
+    }
+
+    /**
+     * @param ids word ids of the sentence in {@link #getWords()}
+     */
+    void add(int[] ids, Sentiment sentiment) {
+        int c = sentiment.ordinal();
+        ensureCapacity(words.size());
+        sentenceCounts[c]++;
+
+        if (scheme == ExtractionScheme.TO) {
+            for (int id : ids) {
+                counts[c][id]++;
+            }
+            return;
+        }
+
+        int[] termIds = new int[ids.length];
+        double[] termFrequencies = new double[ids.length];
+        int termCount = getTermFrequencies(ids, termIds, termFrequencies);
+        for (int i = 0; i < termCount; i++) {
+            addTerm(c, termIds[i], termFrequencies[i]);
+        }
+    }
+
+    /**
+     * Finds the distinct words of a sentence and their term frequencies
+     *
+     * @return number of distinct words, stored in order of first occurrence
+     */
+    static int getTermFrequencies(int[] ids, int[] termIds, double[] termFrequencies) {
+        int termCount = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (isRepeated(ids, i)) {
+                continue;
+            }
+
+            int occurrences = 0;
+            for (int j = i; j < ids.length; j++) {
+                if (ids[j] == id) {
+                    occurrences++;
+                }
+            }
+            termIds[termCount] = id;
+            termFrequencies[termCount] = (double) (occurrences + 1) / ids.length;
+            termCount++;
+        }
+        return termCount;
+    }
+
+    /**
+     * Adds a word of a sentence for TF and TFIDF. Updates of different words
+     * can run at the same time once the capacity is ensured.
+     */
+    void addTerm(int c, int id, double termFrequency) {
+        sums[c][id] += termFrequency;
+        partialSums[c][id] += sums[c][id];
+        if (counts != null) {
+            counts[c][id]++;
+        }
+    }
+
+    /**
+     * Adds occurrences of words for TO, by class and word id
+     */
+    void addOccurrences(int[][] occurrences) {
+        ensureCapacity(words.size());
+        for (int c = 0; c < occurrences.length; c++) {
+            for (int id = 0; id < occurrences[c].length; id++) {
+                counts[c][id] += occurrences[c][id];
+            }
+        }
+    }
+
+    void addSentenceCounts(int[] newSentenceCounts) {
+        for (int c = 0; c < sentenceCounts.length; c++) {
+            sentenceCounts[c] += newSentenceCounts[c];
+        }
+    }
+
+    /**
+     * @return smoothed log likelihoods of the words of <code>vocabulary</code>,
+     *         by their ids there
+     */
+    public Likelihoods createLikelihoods(Vocabulary vocabulary, double alpha) {
+        int size = vocabulary.size();
+        int classCount = sentenceCounts.length;
+        int[] ids = new int[size];
+        for (int id = 0; id < size; id++) {
+            ids[id] = words.indexOf(vocabulary.getWord(id));
+        }
+
+        double[] totals = new double[classCount];
+        for (int c = 0; c < classCount; c++) {
+            if (scheme == ExtractionScheme.TO) {
+                // Only words of the vocabulary are counted in the total
+                for (int id = 0; id < size; id++) {
+                    totals[c] += ids[id] >= 0 ? counts[c][ids[id]] : 0;
+                }
+            }
+            else if (scheme == ExtractionScheme.TF) {
+                // Same as adding each word's sum after each sentence
+                for (int id = 0; id < words.size(); id++) {
+                    totals[c] += partialSums[c][id];
+                }
+            }
+            else {
+                for (int id = 0; id < words.size(); id++) {
+                    totals[c] += partialSums[c][id] * getIdf(c, id);
+                }
+            }
+        }
+
+        Likelihoods.Builder builder = new Likelihoods.Builder(classCount, size);
+        double[] values = new double[classCount];
+        for (int id = 0; id < size; id++) {
+            int statsId = ids[id];
+            for (int c = 0; c < classCount; c++) {
+                if (statsId < 0) {
+                    values[c] = 0;
+                }
+                else if (scheme == ExtractionScheme.TO) {
+                    values[c] = counts[c][statsId];
+                }
+                else if (scheme == ExtractionScheme.TF) {
+                    values[c] = sums[c][statsId];
+                }
+                else {
+                    values[c] = sums[c][statsId] * getIdf(c, statsId);
+                }
+            }
+            builder.addWord(values);
+        }
+        return builder.build(totals, alpha);
+    }
+
+    private double getIdf(int c, int id) {
+        return counts[c][id] > 0 ? Math.log((double) sentenceCounts[c] / counts[c][id]) : 0;
+    }
+
+    private static boolean isRepeated(int[] ids, int index) {
+        for (int i = 0; i < index; i++) {
+            if (ids[i] == ids[index]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void ensureCapacity(int size) {
+        int capacity = counts != null ? counts[0].length : sums[0].length;
+        if (size <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(size, capacity * 2);
+        for (int c = 0; c < sentenceCounts.length; c++) {
+            if (counts != null) {
+                counts[c] = Arrays.copyOf(counts[c], newCapacity);
+            }
+            if (sums != null) {
+                sums[c] = Arrays.copyOf(sums[c], newCapacity);
+            }
+            if (partialSums != null) {
+                partialSums[c] = Arrays.copyOf(partialSums[c], newCapacity);
+            }
+        }
+    }
+
+    /**
+     * Writes the section of the model file that follows the likelihoods, see
+     * {@link ModelFile}
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(scheme.ordinal());
+        out.writeInt(words.size());
+        for (int sentenceCount : sentenceCounts) {
+            out.writeInt(sentenceCount);
+        }
+        for (int id = 0; id < words.size(); id++) {
+            byte[] bytes = words.getWord(id).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        for (int c = 0; c < sentenceCounts.length; c++) {
+            for (int id = 0; id < words.size(); id++) {
+                if (counts != null) {
+                    out.writeInt(counts[c][id]);
+                }
+                if (sums != null) {
+                    out.writeDouble(sums[c][id]);
+                }
+                if (partialSums != null) {
+                    out.writeDouble(partialSums[c][id]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the section written by {@link #write(DataOutputStream)} from the
+     * position of the buffer
+     *
+     * @return <code>null</code> if the buffer does not start with the section
+     */
+    static TrainingStats read(ByteBuffer buffer) {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        TrainingStats stats = new TrainingStats(ExtractionScheme.values()[buffer.getInt()]);
+        int wordCount = buffer.getInt();
+        for (int c = 0; c < stats.sentenceCounts.length; c++) {
+            stats.sentenceCounts[c] = buffer.getInt();
+        }
+        for (int id = 0; id < wordCount; id++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            stats.words.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        stats.ensureCapacity(wordCount);
+        for (int c = 0; c < stats.sentenceCounts.length; c++) {
+            for (int id = 0; id < wordCount; id++) {
+                if (stats.counts != null) {
+                    stats.counts[c][id] = buffer.getInt();
+                }
+                if (stats.sums != null) {
+                    stats.sums[c][id] = buffer.getDouble();
+                }
+                if (stats.partialSums != null) {
+                    stats.partialSums[c][id] = buffer.getDouble();
+                }
+            }
+        }
+        return stats;
+    }
+}
@@ -1,7 +1,9 @@
 package org.lexicon.data;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -11,16 +13,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.lexicon.process.ChiSquare;
-import org.lexicon.process.DataProcessor;
 import org.lexicon.Sentiment;
-import org.lexicon.util.ProgressBar;
-import org.lexicon.util.WorkbookUtil;
+import org.lexicon.util.Metrics;
+import org.lexicon.util.TableWriter;
 
 public class Document implements Serializable {
 
@@ -41,6 +37,9 @@ public class Document implements Serializable {
 
     private boolean cacheValid = false;
 
+    // Preprocessed sentences, with stop words kept [0] and removed [1]
+    private transient TokenizedCorpus[] corpusCache;
+
     public Document(List<AnnotatedText> sentences, boolean useChiSquare) {
         if (sentences == null) {
             throw new NullPointerException();
@@ -53,8 +52,41 @@ public class Document implements Serializable {
         return sentences;
     }
 
+    /**
+     * Drops everything computed from the sentences, including the tokenized
+     * corpus, to be called after the sentences are changed
+     */
     public void invalidateCache() {
         cacheValid = false;
+        corpusCache = null;
+    }
+
+    /**
+     * Sets whether the vocabulary and word counts are limited to the words
+     * selected by chi-square. The tokenized corpus does not depend on it, so it
+     * is kept.
+     */
+    public void setUseFeatureSelection(boolean useFeatureSelection) {
+        this.useFeatureSelection = useFeatureSelection;
+        cacheValid = false;
+    }
+
+    /**
+     * @return sentences preprocessed with stop words removed
+     */
+    public TokenizedCorpus getTokenizedCorpus() {
+        return getTokenizedCorpus(true);
+    }
+
+    public TokenizedCorpus getTokenizedCorpus(boolean removeStopWords) {
+        if (corpusCache == null) {
+            corpusCache = new TokenizedCorpus[2];
+        }
+        int index = removeStopWords ? 1 : 0;
+        if (corpusCache[index] == null) {
+            corpusCache[index] = new TokenizedCorpus(sentences, removeStopWords);
+        }
+        return corpusCache[index];
     }
 
     public Map<Sentiment, Integer> getSentenceCountMap() {
@@ -189,67 +221,75 @@ public class Document implements Serializable {
 
         Map<String, Map<String, Integer>> intersectionDataMap = this.getIntersectionDataMap();
 
-        Workbook wb = new HSSFWorkbook();
-        for (Entry<String, Map<String, Integer>> intersectionDataEntry : intersectionDataMap.entrySet()) {
-            Sheet sheet = wb.createSheet(intersectionDataEntry.getKey());
+        // The first sheet is named when the file is opened
+        String firstSheet = intersectionDataMap.keySet().iterator().next();
+        try (TableWriter writer = TableWriter.open(filename, firstSheet)) {
+            for (Entry<String, Map<String, Integer>> intersectionDataEntry : intersectionDataMap.entrySet()) {
+                if (!intersectionDataEntry.getKey().equals(firstSheet)) {
+                    writer.startSheet(intersectionDataEntry.getKey());
+                }
+                writer.writeRow((Object[]) headers);
+
+                int total = 0;
+                Map<String, Integer> wordCountMap = intersectionDataEntry.getValue();
+                for (Entry<String, Integer> wordCountEntry : wordCountMap.entrySet()) {
+                    String word = wordCountEntry.getKey();
 
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headers.length; i++) {
-                headerRow.createCell(i).setCellValue(headers[i]);
-            }
+                    int positiveCount = positiveWordCountMap.containsKey(word) ? positiveWordCountMap.get(word) : 0;
+                    int negativeCount = negativeWordCountMap.containsKey(word) ? negativeWordCountMap.get(word) : 0;
+                    int neutralCount = neutralWordCountMap.containsKey(word) ? neutralWordCountMap.get(word) : 0;
 
-            int currentRow = 1;
-            Map<String, Integer> wordCountMap = intersectionDataEntry.getValue();
-            for (Entry<String, Integer> wordCountEntry : wordCountMap.entrySet()) {
-                Row row = sheet.createRow(currentRow++);
-                String word = wordCountEntry.getKey();
-
-                int positiveCount = positiveWordCountMap.containsKey(word) ? positiveWordCountMap.get(word) : 0;
-                int negativeCount = negativeWordCountMap.containsKey(word) ? negativeWordCountMap.get(word) : 0;
-                int neutralCount = neutralWordCountMap.containsKey(word) ? neutralWordCountMap.get(word) : 0;
-
-                row.createCell(0).setCellValue(wordCountEntry.getKey());
-                row.createCell(1).setCellValue(wordCountEntry.getValue());
-                row.createCell(2).setCellValue(positiveCount);
-                row.createCell(3).setCellValue(negativeCount);
-                row.createCell(4).setCellValue(neutralCount);
+                    writer.writeRow(word, wordCountEntry.getValue(), positiveCount, negativeCount, neutralCount);
+                    total += wordCountEntry.getValue();
+                }
+                // A value instead of a SUM formula, which text files cannot hold
+                writer.writeRow("TOTAL:", total);
             }
-            Row row = sheet.createRow(currentRow);
-            row.createCell(0).setCellValue("TOTAL:");
-            row.createCell(1).setCellFormula("SUM(B2:B" + (currentRow) + ")");
-
+            return true;
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
         }
-
-        return WorkbookUtil.writeWorkbookToFile(wb, filename);
     }
 
     private void generateCache() {
-        ProgressBar bar = new ProgressBar(sentences.size());
-        Map<String, Double> selectedFeatures = new HashMap<>();
-        if (useFeatureSelection) {
-            ChiSquare cs = new ChiSquare();
-            selectedFeatures = cs.selectFeatures(this);
-        }
-
-        initializeCache();
-        for (AnnotatedText sentence : sentences) {
-            Sentiment sentiment = sentence.getCategory();
-
-            // sentence count
-            int count = sentenceCountMapCache.get(sentiment);
-            sentenceCountMapCache.put(sentiment, count + 1);
+        try (Metrics.Phase phase = Metrics.startPhase("document.generateCache")) {
+            TokenizedCorpus corpus = getTokenizedCorpus();
+            Vocabulary corpusVocabulary = corpus.getVocabulary();
+
+            // Whether each word of the corpus is kept
+            boolean[] selected;
+            if (useFeatureSelection) {
+                ChiSquare cs = new ChiSquare();
+                selected = cs.selectFeatureIds(this);
+            }
+            else {
+                selected = new boolean[corpusVocabulary.size()];
+                Arrays.fill(selected, true);
+            }
 
-            // word list
-            List<String> words = DataProcessor.preprocess(sentence.getText());
-            for (String word : words) {
-                if (!useFeatureSelection || selectedFeatures.get(word) != null) {
-                    wordListMapCache.get(sentiment).add(word);
-                    vocabularySetCache.add(word);
+            initializeCache();
+            for (int i = 0; i < corpus.size(); i++) {
+                Sentiment sentiment = corpus.getCategory(i);
+
+                // sentence count
+                int count = sentenceCountMapCache.get(sentiment);
+                sentenceCountMapCache.put(sentiment, count + 1);
+
+                // word list
+                List<String> wordList = wordListMapCache.get(sentiment);
+                for (int id : corpus.getTokens(i)) {
+                    if (selected[id]) {
+                        String word = corpusVocabulary.getWord(id);
+                        wordList.add(word);
+                        vocabularySetCache.add(word);
+                    }
                 }
             }
-            bar.step();
+            cacheValid = true;
+            phase.addItems(corpus.size());
         }
-        cacheValid = true;
     }
 
     private void initializeCache() {
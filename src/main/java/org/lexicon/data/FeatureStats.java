@@ -2,66 +2,100 @@ package org.lexicon.data;
 
 import org.lexicon.Sentiment;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/**
+ * Contingency table of word ids and categories, counted from the sentences
+ * of a {@link TokenizedCorpus} with the same word ids as its vocabulary
+ */
 public class FeatureStats {
     /**
      * total number of Observations
      */
     public int n;
 
+    private final int wordCount;
+    private final int classCount = Sentiment.values().length;
+
+    /**
+     * Measures how many times each category was found in the training dataset, by ordinal.
+     */
+    private final int[] categoryCounts = new int[classCount];
+
     /**
-     * It stores the co-occurrences of Feature and Category values
+     * Occurrences of each word id in all of the categories
      */
-    public Map<String, Map<Sentiment, Integer>> featureCategoryJointCount = new HashMap<>();
+    private final int[] wordCounts;
 
     /**
-     * Measures how many times each category was found in the training dataset.
+     * Co-occurrences of Feature and Category values, at <code>c * wordCount + id</code>
+     * so the counts of a category are contiguous
      */
-    public Map<Sentiment, Integer> categoryCounts = new HashMap<>();
+    private final int[] jointCounts;
 
-    public FeatureStats () {}
+    public FeatureStats(int wordCount) {
+        this.wordCount = wordCount;
+        wordCounts = new int[wordCount];
+        jointCounts = new int[classCount * wordCount];
+    }
 
     public static FeatureStats generateFeatureStats(Document dataset) {
-        FeatureStats stats = new FeatureStats();
-
-        Integer categoryCount;
-        Sentiment category;
-        Integer featureCategoryCount;
-        String feature;
-        Map<Sentiment, Integer> featureCategoryCounts;
-        for(AnnotatedText sentence : dataset.getData()) {
-            ++stats.n; // increase the number of observations
-            category = sentence.getCategory();
-
-            // increase the category counter by one
-            categoryCount = stats.categoryCounts.get(category);
-            if (categoryCount == null) {
-                stats.categoryCounts.put(category, 1);
-            } else {
-                stats.categoryCounts.put(category, categoryCount + 1);
-            }
-
-            for (AnnotatedText token : sentence.preprocessIntoWords()) {
-                feature = token.getText();
-
-                // get the counts of the feature in the categories
-                featureCategoryCounts = stats.featureCategoryJointCount.get(feature);
-                if (featureCategoryCounts == null) {
-                    // initialize it if it does not exist
-                    stats.featureCategoryJointCount.put(feature, new HashMap<>());
-                }
-
-                featureCategoryCount = stats.featureCategoryJointCount.get(feature).get(category);
-                if (featureCategoryCount == null) {
-                    featureCategoryCount = 0;
-                }
-
-                // increase the number of occurrences of the feature in the category
-                stats.featureCategoryJointCount.get(feature).put(category, ++featureCategoryCount);
-            }
+        TokenizedCorpus corpus = dataset.getTokenizedCorpus();
+        FeatureStats stats = new FeatureStats(corpus.getVocabulary().size());
+        for (int i = 0; i < corpus.size(); i++) {
+            stats.add(corpus.getTokens(i), corpus.getCategory(i));
         }
         return stats;
     }
+
+    /**
+     * Counts a sentence and every occurrence of its words
+     */
+    public void add(int[] ids, Sentiment category) {
+        int c = category.ordinal();
+        ++n; // increase the number of observations
+        ++categoryCounts[c];
+
+        int base = c * wordCount;
+        for (int id : ids) {
+            ++jointCounts[base + id];
+            ++wordCounts[id];
+        }
+    }
+
+    /**
+     * @return number of word ids
+     */
+    public int getVocabularySize() {
+        return wordCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getCategoryCount(int c) {
+        return categoryCounts[c];
+    }
+
+    public int getWordCount(int id) {
+        return wordCounts[id];
+    }
+
+    public int getJointCount(int c, int id) {
+        return jointCounts[c * wordCount + id];
+    }
+
+    /**
+     * @return co-occurrence counts of all categories, see {@link #getJointCount(int, int)}
+     *         for the layout; not a copy
+     */
+    public int[] getJointCounts() {
+        return jointCounts;
+    }
+
+    /**
+     * @return occurrences of each word id; not a copy
+     */
+    public int[] getWordCounts() {
+        return wordCounts;
+    }
 }
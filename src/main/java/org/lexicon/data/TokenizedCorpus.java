@@ -0,0 +1,85 @@
+package org.lexicon.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lexicon.Sentiment;
+import org.lexicon.process.DataProcessor;
+import org.lexicon.util.Metrics;
+import org.lexicon.util.ProgressBar;
+
+/**
+ * Sentences of a document after {@link DataProcessor#preprocess(String, boolean)},
+ * stored as arrays of word ids into a shared {@link Vocabulary}. Each sentence
+ * is preprocessed once, when the corpus is created.
+ */
+public class TokenizedCorpus {
+
+    private final Vocabulary vocabulary;
+
+    // Word ids of each sentence, in document order
+    private final int[][] tokens;
+
+    private final Sentiment[] categories;
+
+    private final boolean stopWordsRemoved;
+
+    public TokenizedCorpus(List<AnnotatedText> sentences, boolean removeStopWords) {
+        vocabulary = new Vocabulary(5000);
+        tokens = new int[sentences.size()][];
+        categories = new Sentiment[sentences.size()];
+        stopWordsRemoved = removeStopWords;
+
+        ProgressBar bar = new ProgressBar(sentences.size());
+        try (Metrics.Phase phase = Metrics.startPhase("preprocess")) {
+            for (int i = 0; i < tokens.length; i++) {
+                AnnotatedText sentence = sentences.get(i);
+                List<String> words = DataProcessor.preprocess(sentence.getText(), removeStopWords);
+
+                int[] ids = new int[words.size()];
+                for (int j = 0; j < ids.length; j++) {
+                    ids[j] = vocabulary.add(words.get(j));
+                }
+                tokens[i] = ids;
+                categories[i] = sentence.getCategory();
+                phase.addItems(ids.length);
+                bar.step();
+            }
+        }
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    public boolean isStopWordsRemoved() {
+        return stopWordsRemoved;
+    }
+
+    /**
+     * @return number of sentences
+     */
+    public int size() {
+        return tokens.length;
+    }
+
+    public int[] getTokens(int sentence) {
+        return tokens[sentence];
+    }
+
+    public Sentiment getCategory(int sentence) {
+        return categories[sentence];
+    }
+
+    /**
+     * @return words of the sentence, same as the result of preprocessing its text
+     */
+    public List<String> getWords(int sentence) {
+        int[] ids = tokens[sentence];
+        List<String> words = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            words.add(vocabulary.getWord(id));
+        }
+        return words;
+    }
+}
@@ -0,0 +1,158 @@
+package org.lexicon.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Cebuano translations of English words, read from the compiled translations
+ * resource. Only the entries that are looked up are decoded:
+ *
+ * <pre>
+ * int      magic "LXTR"
+ * int      word count
+ * int[]    offset of each entry from the start of the entries, in word
+ *          order, and the end of the last entry
+ * entries  each an English word, an int translation count and the
+ *          translation and part of speech of each
+ * </pre>
+ *
+ * Strings are an int byte length and the UTF-8 bytes. Words are sorted by
+ * {@link String#compareTo(String)}.
+ */
+public class TranslationIndex {
+
+    static final int MAGIC = 0x4C585452;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int entriesStart;
+
+    private TranslationIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(4);
+        this.entriesStart = 8 + (size + 1) * 4;
+    }
+
+    /**
+     * Uses the bytes of the buffer from its position, without copying them
+     *
+     * @return <code>null</code> if the buffer does not hold translations
+     */
+    public static TranslationIndex read(ByteBuffer buffer) {
+        if (buffer.remaining() < 8 || buffer.getInt(buffer.position()) != MAGIC) {
+            return null;
+        }
+        return new TranslationIndex(buffer.slice());
+    }
+
+    /**
+     * @param translationsJson object of English words, each with an array of
+     *            objects with a translation and a part of speech
+     */
+    public static byte[] compile(JsonObject translationsJson) throws IOException {
+        Map<String, JsonArray> entries = new TreeMap<>();
+        for (Map.Entry<String, JsonElement> entry : translationsJson.entrySet()) {
+            entries.put(entry.getKey(), entry.getValue().getAsJsonArray());
+        }
+
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+        int[] offsets = new int[entries.size() + 1];
+        int index = 0;
+        try (DataOutputStream out = new DataOutputStream(entryBytes)) {
+            for (Map.Entry<String, JsonArray> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (JsonElement translation : entry.getValue()) {
+                    Translation t = new Translation(translation.getAsJsonObject());
+                    writeString(out, t.getWord());
+                    writeString(out, t.getPOS());
+                }
+                offsets[++index] = out.size();
+            }
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(result)) {
+            out.writeInt(MAGIC);
+            out.writeInt(entries.size());
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            entryBytes.writeTo(out);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * @return number of English words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return translations of the word as they are in the resource, or
+     *         <code>null</code> if the word is not there
+     */
+    public List<Translation> get(String word) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            ByteBuffer entry = getEntry(middle);
+            int comparison = readString(entry).compareTo(word);
+            if (comparison < 0) {
+                low = middle + 1;
+            }
+            else if (comparison > 0) {
+                high = middle - 1;
+            }
+            else {
+                int count = entry.getInt();
+                List<Translation> translations = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    translations.add(new Translation(readString(entry), readString(entry)));
+                }
+                return translations;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return English word of the index, in sorted order
+     */
+    public String getWord(int index) {
+        return readString(getEntry(index));
+    }
+
+    // Own position, so lookups can run on several threads
+    private ByteBuffer getEntry(int index) {
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(entriesStart + buffer.getInt(8 + index * 4));
+        return entry;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package org.lexicon.data;
+
+import static org.lexicon.util.ResourceUtil.TRANSLATIONS_BIN;
+import static org.lexicon.util.ResourceUtil.TRANSLATIONS_JSON;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.lexicon.process.DataProcessor;
+import org.lexicon.process.dictionary.CebuanoDictionary;
+import org.lexicon.util.LruCache;
+import org.lexicon.util.ResourceUtil;
+
+/**
+ * Cleaned Cebuano translations of English words, with the other spellings of
+ * each, see {@link CebuanoDictionary#getOtherForms(String)}. Entries are
+ * decoded from a {@link TranslationIndex} when a word is first looked up, and
+ * the translations of the most recently used words are kept, so a word is
+ * cleaned and expanded once however often it is looked up.
+ */
+public class TranslationStore {
+
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private final TranslationIndex index;
+
+    // Words that are not in the index are cached as null
+    private final LruCache<String, SortedSet<Translation>> cache;
+
+    public TranslationStore(TranslationIndex index, int cacheSize) {
+        this.index = index;
+        this.cache = new LruCache<>(cacheSize);
+    }
+
+    private static TranslationStore getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static class InstanceHolder {
+        private static final TranslationStore INSTANCE = new TranslationStore(load(), DEFAULT_CACHE_SIZE);
+
+        private static TranslationIndex load() {
+            ByteBuffer bytes = ResourceUtil.readBytes(TRANSLATIONS_BIN);
+            TranslationIndex index = bytes != null ? TranslationIndex.read(bytes) : null;
+            if (index != null) {
+                return index;
+            }
+
+            // Without a full build, index the JSON once so it is not kept as a tree
+            try {
+                byte[] compiled = TranslationIndex.compile(ResourceUtil.parseJson(TRANSLATIONS_JSON).getAsJsonObject());
+                return TranslationIndex.read(ByteBuffer.wrap(compiled));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @return translations of the resource, see {@link #get(String)}
+     */
+    public static NavigableSet<Translation> getTranslations(String word) {
+        return getInstance().get(word);
+    }
+
+    /**
+     * @return cleaned translations and their other forms sorted by word, or
+     *         <code>null</code> if the word has no entry; the set is not shared,
+     *         so it can be changed
+     */
+    public NavigableSet<Translation> get(String word) {
+        SortedSet<Translation> translations = cache.get(word, this::load);
+        return translations != null ? new TreeSet<>(translations) : null;
+    }
+
+    public LruCache<String, SortedSet<Translation>> getCache() {
+        return cache;
+    }
+
+    private SortedSet<Translation> load(String word) {
+        List<Translation> entries = index.get(word);
+        if (entries == null) {
+            return null;
+        }
+
+        SortedSet<Translation> translations = new TreeSet<>();
+        for (Translation entry : entries) {
+            String cleanedWord = DataProcessor.clean(entry.getWord());
+            translations.add(new Translation(cleanedWord, entry.getPOS()));
+            for (String form : CebuanoDictionary.getOtherForms(cleanedWord)) {
+                translations.add(new Translation(form, entry.getPOS()));
+            }
+        }
+        return Collections.unmodifiableSortedSet(translations);
+    }
+}
@@ -0,0 +1,122 @@
+package org.lexicon.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Interned word list that assigns each distinct word a dense id (0, 1, 2...)
+ * in insertion order. Lookups use an open addressing table of ids, so no
+ * objects are allocated when a word is looked up.
+ */
+public class Vocabulary implements Serializable {
+
+    private static final long serialVersionUID = -2180911533764082297L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    // Word for each id
+    private String[] words;
+
+    // Hash table of (id + 1), 0 marks an empty slot; length is a power of two
+    private int[] slots;
+
+    private int size = 0;
+
+    public Vocabulary() {
+        this(MIN_CAPACITY);
+    }
+
+    public Vocabulary(int expectedSize) {
+        words = new String[Math.max(expectedSize, MIN_CAPACITY)];
+        slots = new int[tableSizeFor(words.length)];
+    }
+
+    public Vocabulary(Iterable<String> words) {
+        this();
+        for (String word : words) {
+            add(word);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String word) {
+        return indexOf(word) >= 0;
+    }
+
+    /**
+     * @return id of the word or <code>-1</code> if it is not in the vocabulary
+     */
+    public int indexOf(String word) {
+        int mask = slots.length - 1;
+        int slot = hash(word) & mask;
+        int id;
+        while ((id = slots[slot]) != 0) {
+            if (words[id - 1].equals(word)) {
+                return id - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the word if it is not yet in the vocabulary
+     *
+     * @return id of the word
+     */
+    public int add(String word) {
+        if (word == null) { throw new NullPointerException(); }
+
+        int mask = slots.length - 1;
+        int slot = hash(word) & mask;
+        int id;
+        while ((id = slots[slot]) != 0) {
+            if (words[id - 1].equals(word)) {
+                return id - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+        }
+        words[size] = word;
+        slots[slot] = ++size;
+
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return size - 1;
+    }
+
+    public String getWord(int id) {
+        if (id < 0 || id >= size) { throw new IndexOutOfBoundsException("Word id: " + id); }
+        return words[id];
+    }
+
+    private void rehash(int newLength) {
+        int[] newSlots = new int[newLength];
+        int mask = newLength - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(words[id]) & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = id + 1;
+        }
+        slots = newSlots;
+    }
+
+    private static int hash(String word) {
+        int h = word.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        return Math.max(n, MIN_CAPACITY * 2);
+    }
+}
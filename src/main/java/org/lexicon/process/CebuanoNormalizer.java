@@ -6,30 +6,133 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Brings Cebuano words to a common spelling: removes diacritics and non-ASCII
+ * characters, lower cases the word and rewrites old orthography.
+ *
+ * The rewrite rules are compiled into a trie and applied in one pass, taking
+ * the longest rule that matches at each position. For this rule set that
+ * gives the same result as applying each rule to the whole word in the order
+ * they are listed.
+ */
 public class CebuanoNormalizer {
 
+    private static final String[][] RULES = {
+            { "z", "s" }, // Old orthography stuff
+            { "ce", "si" },
+            { "ci", "si" },
+            { "gui", "gi" },
+            { "qui", "ki" },
+            { "c", "k" },
+            { "j", "h" },
+
+            { "f", "p" },
+            { "v", "b" },
+            { "o", "u" },
+            { "e", "i" } };
+
+    // Trie over ASCII characters; node 0 is the root and 0 also means "no transition"
+    private static final int[][] TRANSITIONS;
+
+    // Replacement of the rule ending at each node, if any
+    private static final char[][] REPLACEMENTS;
+
+    static {
+        List<int[]> transitions = new ArrayList<>();
+        List<char[]> replacements = new ArrayList<>();
+        transitions.add(new int[128]);
+        replacements.add(null);
+
+        for (String[] rule : RULES) {
+            int node = 0;
+            for (char c : rule[0].toCharArray()) {
+                if (transitions.get(node)[c] == 0) {
+                    transitions.get(node)[c] = transitions.size();
+                    transitions.add(new int[128]);
+                    replacements.add(null);
+                }
+                node = transitions.get(node)[c];
+            }
+            replacements.set(node, rule[1].toCharArray());
+        }
+        TRANSITIONS = transitions.toArray(new int[0][]);
+        REPLACEMENTS = replacements.toArray(new char[0][]);
+    }
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
     // static methods only
     private CebuanoNormalizer() {}
 
     public static String normalize(String word) {
-        return removeDiacritics(word).trim().toLowerCase()
-                .replaceAll("z", "s") // Old orthography stuff
-                .replaceAll("ce", "si")
-                .replaceAll("ci", "si")
-                .replaceAll("gui", "gi")
-                .replaceAll("qui", "ki")
-                .replaceAll("c", "k")
-                .replaceAll("j", "h")
-
-                .replaceAll("f", "p")
-                .replaceAll("v", "b")
-                .replaceAll("o", "u")
-                .replaceAll("e", "i");
+        String decomposed = isAscii(word) ? word : Normalizer.normalize(word, Normalizer.Form.NFD); // removes diacritics
+
+        char[] chars = BUFFER.get();
+        if (chars.length < decomposed.length()) {
+            chars = new char[Math.max(decomposed.length(), chars.length * 2)];
+            BUFFER.set(chars);
+        }
+
+        // removes non-ASCII characters
+        int length = 0;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c < 128) {
+                chars[length++] = c;
+            }
+        }
+
+        int start = 0;
+        int end = length;
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+
+        // Rules never make the word longer, so the result is written over the input
+        int out = 0;
+        int i = start;
+        while (i < end) {
+            int node = 0;
+            int matchEnd = -1;
+            char[] replacement = null;
+            for (int j = i; j < end; j++) {
+                node = TRANSITIONS[node][toLowerCase(chars[j])];
+                if (node == 0) {
+                    break;
+                }
+                if (REPLACEMENTS[node] != null) {
+                    matchEnd = j + 1;
+                    replacement = REPLACEMENTS[node];
+                }
+            }
+
+            if (replacement != null) {
+                for (char c : replacement) {
+                    chars[out++] = c;
+                }
+                i = matchEnd;
+            }
+            else {
+                chars[out++] = toLowerCase(chars[i++]);
+            }
+        }
+        return new String(chars, 0, out);
+    }
+
+    private static boolean isAscii(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static String removeDiacritics(String word) {
-        return Normalizer.normalize(word, Normalizer.Form.NFD) // removes diacritics
-                .replaceAll("[^\\p{ASCII}]", ""); // removes non-ASCII characters?
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
     }
 
     public static List<String> normalize(List<String> list) {
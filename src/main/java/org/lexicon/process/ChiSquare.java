@@ -3,10 +3,12 @@ package org.lexicon.process;
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
 import org.lexicon.NaiveBayesClassifier;
 import org.lexicon.Sentiment;
-import org.lexicon.data.AnnotatedText;
 import org.lexicon.data.Document;
 import org.lexicon.data.FeatureStats;
+import org.lexicon.data.Vocabulary;
+import org.lexicon.util.Metrics;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -29,140 +31,164 @@ public class ChiSquare {
     }
 
     public Map<String, Double> selectFeatures(Document dataset) {
-        int vocabularyNum = dataset.vocabularySetCache.size();
-        FeatureStats stats = FeatureStats.generateFeatureStats(dataset);
-        System.out.println("VocabularyNum: " + vocabularyNum);
-        setDegreesOfFreedom((vocabularyNum - 1) * (Sentiment.values().length - 1));
+        Vocabulary vocabulary = dataset.getTokenizedCorpus().getVocabulary();
+        double[] scores = scoreFeatures(dataset);
         double criticalValue = calculateCriticalValue();
-        System.out.println("CriticalValue: " + criticalValue);
         Map<String, Double> selectedFeatures = new HashMap<>();
-
-        String feature;
-        Sentiment category;
-        Map<Sentiment, Integer> categoryList;
-
-        int n1dot, n0dot, n00, n01, n10, n11;
-        double chiSquareScore;
-        Double previousScore;
-        for(Map.Entry<String, Map<Sentiment, Integer>> entry1 : stats.featureCategoryJointCount.entrySet()) {
-            feature = entry1.getKey();
-            categoryList = entry1.getValue();
-
-            //calculate the N1. (number of documents that have the feature)
-            n1dot = 0;
-            for(Integer count : categoryList.values()) {
-                n1dot += count;
+        for (int id = 0; id < scores.length; id++) {
+            if (scores[id] >= criticalValue) {
+                selectedFeatures.put(vocabulary.getWord(id), scores[id]);
             }
+        }
+        return selectedFeatures;
+    }
 
-            //also the N0. (number of documents that DONT have the feature)
-            n0dot = stats.n - n1dot;
-
-            for(Map.Entry<Sentiment, Integer> entry2 : categoryList.entrySet()) {
-                category = entry2.getKey();
-                n11 = entry2.getValue(); // N11 is the number of documents that have the feature and belong on the specific category
-                n01 = stats.categoryCounts.get(category) - n11; // N01 is the total number of documents that do not have the particular feature BUT they belong to the specific category
-
-                n00 = n0dot - n01; // N00 counts the number of documents that don't have the feature and don't belong to the specific category
-                n10 = n1dot - n11; // N10 counts the number of documents that have the feature and don't belong to the specific category
-
-                // calculate the chisquare score based on the above statistics
-                chiSquareScore = stats.n*Math.pow(n11*n00-n10*n01, 2)/((n11+n01)*(n11+n10)*(n10+n00)*(n01+n00));
+    /**
+     * @return whether each word of the tokenized corpus of the document is
+     *         selected, by word id
+     */
+    public boolean[] selectFeatureIds(Document dataset) {
+        double[] scores = scoreFeatures(dataset);
+        double criticalValue = calculateCriticalValue();
+        boolean[] selected = new boolean[scores.length];
+        for (int id = 0; id < scores.length; id++) {
+            selected[id] = scores[id] >= criticalValue;
+        }
+        return selected;
+    }
 
-                //if the score is larger than the critical value then add it in the list
-                if (chiSquareScore >= criticalValue) {
-                    previousScore = selectedFeatures.get(feature);
-                    if (previousScore == null || chiSquareScore > previousScore) {
-                        // System.out.println("Selected: " + feature + "\nScore: " + chiSquareScore);
-                        selectedFeatures.put(feature, chiSquareScore);
-                    }
-                }
-                else {
-                    // System.out.println("Not Selected: " + feature + "\nScore: " + chiSquareScore);
+    /**
+     * Scores the words of the tokenized corpus of the document, and sets the
+     * degrees of freedom for its vocabulary
+     *
+     * @return scores by word id, see {@link #score(FeatureStats)}
+     */
+    public double[] scoreFeatures(Document dataset) {
+        try (Metrics.Phase phase = Metrics.startPhase("featureSelection")) {
+            FeatureStats stats = FeatureStats.generateFeatureStats(dataset);
+            int vocabularyNum = stats.getVocabularySize();
+            System.out.println("VocabularyNum: " + vocabularyNum);
+            setDegreesOfFreedom((vocabularyNum - 1) * (Sentiment.values().length - 1));
+            System.out.println("CriticalValue: " + calculateCriticalValue());
+
+            double[] scores = score(stats);
+            int selected = 0;
+            double criticalValue = calculateCriticalValue();
+            for (double score : scores) {
+                if (score >= criticalValue) {
+                    selected++;
                 }
             }
+            System.out.println("selectedFeatures size: " + selected);
+            phase.addItems(vocabularyNum);
+            return scores;
         }
-        System.out.println("selectedFeatures size: " + selectedFeatures.size());
-
-        return selectedFeatures;
     }
 
+    /**
+     * @return highest chi-square score of each word id over the categories it
+     *         was found in, negative infinity for words that were not found
+     */
+    public static double[] score(FeatureStats stats) {
+        int vocabularyNum = stats.getVocabularySize();
+        int[] jointCounts = stats.getJointCounts();
+        int[] wordCounts = stats.getWordCounts();
+        long n = stats.n;
+
+        double[] scores = new double[vocabularyNum];
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+        for (int c = 0; c < stats.getClassCount(); c++) {
+            int base = c * vocabularyNum;
+            long categoryCount = stats.getCategoryCount(c);
+            for (int id = 0; id < vocabularyNum; id++) {
+                long n11 = jointCounts[base + id]; // documents that have the feature and belong on the category
+                long n1dot = wordCounts[id]; // documents that have the feature
+                long n10 = n1dot - n11; // documents that have the feature and don't belong to the category
+                long n01 = categoryCount - n11; // documents that don't have the feature but belong to the category
+                long n00 = n - n1dot - n01; // documents that don't have the feature and don't belong to the category
+
+                // The counts fit in an int, so their products fit in a long
+                double difference = n11 * n00 - n10 * n01;
+                double chiSquareScore = n * difference * difference
+                        / ((double) (n11 + n01) * (n11 + n10) * (n10 + n00) * (n01 + n00));
+
+                // Only the categories the word was found in are scored
+                if (n11 > 0 && chiSquareScore > scores[id]) {
+                    scores[id] = chiSquareScore;
+                }
+            }
+        }
+        return scores;
+    }
 
     public Map<String, Double> selectFeatures(NaiveBayesClassifier model) {
-        int vocabularyNum = model.getVocabulary().size();
+        try (Metrics.Phase phase = Metrics.startPhase("featureSelection")) {
+            Vocabulary vocabulary = model.getVocabulary();
+            double[][] likelihoods = model.getLikelihoods();
+            int vocabularyNum = vocabulary.size();
+
+            System.out.println("VocabularyNum: " + vocabularyNum);
+
+            setDegreesOfFreedom((vocabularyNum - 1) * (Sentiment.values().length - 1));
+            double criticalValue = calculateCriticalValue();
+            System.out.println("CriticalValue: " + criticalValue);
+            Map<String, Double> selectedFeatures = new HashMap<>();
+
+            // Scores indexed by word id and by sentiment ordinal
+            double[] wordScores = new double[vocabularyNum];
+            double[] categoryScores = new double[likelihoods.length];
+            double observations = 0;
+            for (int c = 0; c < likelihoods.length; c++) {
+                for (int id = 0; id < vocabularyNum; id++) {
+                    double score = Math.exp(likelihoods[c][id]);
+                    observations += score;
+                    wordScores[id] += score;
+                    categoryScores[c] += score;
+                }
+            }
+            System.out.println("Observations: " + observations);
+            System.out.println("WordScoreMapSize: " + vocabularyNum);
+            System.out.println("CategoryScoreMapSize: " + categoryScores.length);
 
-        System.out.println("VocabularyNum: " + vocabularyNum);
 
-        setDegreesOfFreedom((vocabularyNum - 1) * (Sentiment.values().length - 1));
-        double criticalValue = calculateCriticalValue();
-        System.out.println("CriticalValue: " + criticalValue);
-        Map<String, Double> selectedFeatures = new HashMap<>();
+            String feature;
 
-        Map<String, Double> wordScoreMap = new HashMap<>();
-        Map<Sentiment, Double> categoryScoreMap = new HashMap<>();
-        double observations = 0;
-        for (Map.Entry<AnnotatedText, Double> modelScore : model.getLikelihoodMap().entrySet()) {
-            String word = modelScore.getKey().getText();
-            Sentiment category = modelScore.getKey().getCategory();
-            double score = Math.exp(modelScore.getValue());
-            observations += score;
-
-            if (!wordScoreMap.containsKey(word)) {
-                wordScoreMap.put(word, 0.0);
-            }
-            if (!categoryScoreMap.containsKey(category)) {
-                categoryScoreMap.put(category, 0.0);
-            }
-            double currentScore = wordScoreMap.get(word);
-            wordScoreMap.put(word, currentScore + score);
+            double n1dot, n0dot, n00, n01, n10, n11;
+            double chiSquareScore;
+            Double previousScore;
+            for (int id = 0; id < vocabularyNum; id++) {
+                feature = vocabulary.getWord(id);
+                n1dot = wordScores[id];
 
-            double currentCategoryScore = categoryScoreMap.get(category);
-            categoryScoreMap.put(category, currentCategoryScore + score);
-        }
-        System.out.println("Observations: " + observations);
-        System.out.println("WordScoreMapSize: " + wordScoreMap.size());
-        System.out.println("CategoryScoreMapSize: " + categoryScoreMap.size());
-
-
-        String feature;
-        Sentiment category;
-
-        double n1dot, n0dot, n00, n01, n10, n11;
-        double chiSquareScore;
-        Double previousScore;
-        for (Map.Entry<String, Double> entry1 : wordScoreMap.entrySet()) {
-            feature = entry1.getKey();
-            // categoryList = entry1.getValue();
-            n1dot = entry1.getValue();
-
-            //also the N0. (number of documents that DONT have the feature)
-            n0dot = observations - n1dot;
-
-            for (Sentiment sentiment : Sentiment.values()) {
-                category = sentiment;
-                n11 = model.getLikelihoodMap().get(new AnnotatedText(feature, category)); // N11 is the number of documents that have the feature and belong on the specific category
-                n01 = categoryScoreMap.get(category) - n11; // N01 is the total number of documents that do not have the particular feature BUT they belong to the specific category
-
-                n00 = n0dot - n01; // N00 counts the number of documents that don't have the feature and don't belong to the specific category
-                n10 = n1dot - n11; // N10 counts the number of documents that have the feature and don't belong to the specific category
-
-                // calculate the chisquare score based on the above statistics
-                chiSquareScore = observations*Math.pow(n11*n00-n10*n01, 2)/((n11+n01)*(n11+n10)*(n10+n00)*(n01+n00));
-
-                //if the score is larger than the critical value then add it in the list
-                // System.out.printf("feature: " + feature + "%.2f %.2f %.2f %f \n", n00, n01, n10, n11);
-                if (chiSquareScore >= criticalValue) {
-                    previousScore = selectedFeatures.get(feature);
-                    if (previousScore == null || chiSquareScore > previousScore) {
-                        selectedFeatures.put(feature, chiSquareScore);
+                //also the N0. (number of documents that DONT have the feature)
+                n0dot = observations - n1dot;
+
+                for (int c = 0; c < likelihoods.length; c++) {
+                    n11 = likelihoods[c][id]; // N11 is the number of documents that have the feature and belong on the specific category
+                    n01 = categoryScores[c] - n11; // N01 is the total number of documents that do not have the particular feature BUT they belong to the specific category
+
+                    n00 = n0dot - n01; // N00 counts the number of documents that don't have the feature and don't belong to the specific category
+                    n10 = n1dot - n11; // N10 counts the number of documents that have the feature and don't belong to the specific category
+
+                    // calculate the chisquare score based on the above statistics
+                    chiSquareScore = observations*Math.pow(n11*n00-n10*n01, 2)/((n11+n01)*(n11+n10)*(n10+n00)*(n01+n00));
+
+                    //if the score is larger than the critical value then add it in the list
+                    // System.out.printf("feature: " + feature + "%.2f %.2f %.2f %f \n", n00, n01, n10, n11);
+                    if (chiSquareScore >= criticalValue) {
+                        previousScore = selectedFeatures.get(feature);
+                        if (previousScore == null || chiSquareScore > previousScore) {
+                            selectedFeatures.put(feature, chiSquareScore);
+                        }
+                    }
+                    else {
+                        System.out.println("Not Selected: " + feature + "\nScore: " + chiSquareScore);
                     }
-                }
-                else {
-                    System.out.println("Not Selected: " + feature + "\nScore: " + chiSquareScore);
                 }
             }
+            System.out.println("selectedFeatures size: " + selectedFeatures.size());
+            phase.addItems(vocabularyNum);
+            return selectedFeatures;
         }
-        System.out.println("selectedFeatures size: " + selectedFeatures.size());
-
-        return selectedFeatures;
     }
 }
@@ -0,0 +1,301 @@
+package org.lexicon.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.lexicon.Sentiment;
+import org.lexicon.data.AnnotatedText;
+
+/**
+ * Sentences of a document workbook saved in a binary file next to it, so that
+ * later runs read them without parsing the workbook. All numbers are
+ * big-endian:
+ *
+ * <pre>
+ * int    magic "LXCC"
+ * int    version
+ * int    sentence count
+ * int    length of the text data
+ * long   size of the workbook
+ * long   last modified time of the workbook
+ * long   CRC32 of the workbook
+ * byte[] UTF-8 sentences in row order, zero padded to a multiple of 4
+ * int[]  sentence count + 1 offsets into the text data
+ * byte[] category of each sentence, the {@link Sentiment} ordinal
+ * </pre>
+ *
+ * The cache is used while the workbook has the same size and either the same
+ * modified time or the same checksum. In the second case the new modified time
+ * is saved, so the workbook is only checksummed once.
+ */
+public class CorpusCache {
+
+    public static final int MAGIC = 0x4C584343;
+
+    public static final int VERSION = 1;
+
+    public static final String EXTENSION = ".corpus";
+
+    private static final int HEADER_SIZE = 40;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final IntBuffer offsets;
+    private final int categoriesStart;
+
+    private CorpusCache(ByteBuffer buffer) {
+        this.buffer = buffer;
+        count = buffer.getInt(8);
+        int textLength = buffer.getInt(12);
+
+        categoriesStart = (int) getCategoriesStart(textLength, count);
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(categoriesStart - (count + 1) * 4);
+        duplicate.limit(categoriesStart);
+        offsets = duplicate.slice().asIntBuffer();
+    }
+
+    // In a long, since the counts of a damaged file can be anything
+    private static long getCategoriesStart(int textLength, int count) {
+        return (long) HEADER_SIZE + textLength + (4 - textLength % 4) % 4 + (count + 1L) * 4;
+    }
+
+    public static String getCacheFile(String workbook) {
+        return workbook + EXTENSION;
+    }
+
+    /**
+     * @return cache of the workbook or <code>null</code> if there is none or it
+     *         is out of date
+     */
+    public static CorpusCache open(String workbook) {
+        File source = new File(workbook);
+        File cacheFile = new File(getCacheFile(workbook));
+        if (!source.isFile() || !cacheFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(16) != source.length()) {
+                return null;
+            }
+            // A damaged header must not point past the end of the file
+            int count = buffer.getInt(8);
+            int textLength = buffer.getInt(12);
+            if (count < 0 || textLength < 0
+                    || getCategoriesStart(textLength, count) + count > buffer.limit()) {
+                return null;
+            }
+            // A copied or touched workbook keeps its cache while the content is the same
+            long modified = source.lastModified();
+            if (buffer.getLong(24) != modified) {
+                if (buffer.getLong(32) != checksum(source)) {
+                    return null;
+                }
+                setModified(cacheFile, modified);
+            }
+            return new CorpusCache(buffer);
+        }
+        catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts a new cache of the workbook, which replaces the old one when
+     * {@link Writer#commit()} is called
+     */
+    public static Writer create(String workbook) throws IOException {
+        return new Writer(workbook);
+    }
+
+    /**
+     * @return number of sentences
+     */
+    public int size() {
+        return count;
+    }
+
+    public String getText(int index) {
+        int start = offsets.get(index);
+        byte[] bytes = new byte[offsets.get(index + 1) - start];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(HEADER_SIZE + start);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Sentiment getCategory(int index) {
+        return Sentiment.values()[buffer.get(categoriesStart + index)];
+    }
+
+    /**
+     * Passes each sentence to <code>action</code> in the order of the rows
+     */
+    public void forEach(Consumer<AnnotatedText> action) {
+        for (int i = 0; i < count; i++) {
+            action.accept(new AnnotatedText(getText(i), getCategory(i)));
+        }
+    }
+
+    /**
+     * Saves the modified time of a workbook that was found to have the same
+     * checksum, so it is not checked again on the next open
+     */
+    private static void setModified(File cacheFile, long modified) {
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+            file.seek(24);
+            file.writeLong(modified);
+        }
+        catch (IOException e) {}
+    }
+
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[8192];
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            int read;
+            while ((read = in.read(bytes)) != -1) {
+                crc.update(bytes, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the sentences to a temporary file as they are added. Closing the
+     * writer without committing leaves the old cache as it is. Write errors
+     * only mean that no cache is saved, so they are not thrown.
+     */
+    public static class Writer implements Closeable {
+
+        private final File cacheFile;
+        private final File tempFile;
+        private final DataOutputStream out;
+
+        private final long sourceSize;
+        private final long sourceModified;
+        private final long sourceChecksum;
+
+        private int[] offsets = new int[1024];
+        private final ByteArrayOutputStream categories = new ByteArrayOutputStream();
+        private int count = 0;
+        private int textLength = 0;
+        private boolean failed = false;
+
+        private Writer(String workbook) throws IOException {
+            File source = new File(workbook);
+            // Taken before the workbook is read, so a change while reading makes the cache stale
+            sourceSize = source.length();
+            sourceModified = source.lastModified();
+            sourceChecksum = checksum(source);
+
+            cacheFile = new File(getCacheFile(workbook));
+            tempFile = new File(cacheFile.getPath() + ".tmp");
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.write(new byte[HEADER_SIZE]); // filled in by commit
+        }
+
+        public void add(AnnotatedText sentence) {
+            if (failed) {
+                return;
+            }
+
+            byte[] text = sentence.getText().getBytes(StandardCharsets.UTF_8);
+            try {
+                out.write(text);
+            }
+            catch (IOException e) {
+                failed = true;
+                return;
+            }
+            textLength += text.length;
+            categories.write(sentence.getCategory().ordinal());
+
+            count++;
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count] = textLength;
+        }
+
+        /**
+         * Finishes the file and puts it in place of the old cache
+         *
+         * @return <code>false</code> if the cache could not be saved
+         */
+        public boolean commit() {
+            if (failed) {
+                return false;
+            }
+
+            try {
+                for (int i = textLength; i % 4 != 0; i++) {
+                    out.writeByte(0);
+                }
+                for (int i = 0; i <= count; i++) {
+                    out.writeInt(offsets[i]);
+                }
+                categories.writeTo(out);
+                out.close();
+
+                try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+                    file.writeInt(MAGIC);
+                    file.writeInt(VERSION);
+                    file.writeInt(count);
+                    file.writeInt(textLength);
+                    file.writeLong(sourceSize);
+                    file.writeLong(sourceModified);
+                    file.writeLong(sourceChecksum);
+                }
+
+                try {
+                    Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            catch (IOException e) {
+                failed = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+                Files.deleteIfExists(tempFile.toPath());
+            }
+            catch (IOException e) {}
+        }
+    }
+}
@@ -8,9 +8,25 @@ import org.lexicon.process.stemmer.CebuanoStemmer;
 
 public class DataProcessor {
 
+    // Off by default, models and lexicons made from unstemmed words would not
+    // match stemmed ones
+    private static volatile boolean stemming;
+
     // static methods only
     private DataProcessor() {}
 
+    /**
+     * Sets whether {@link #preprocess(String, boolean)} reduces words to their
+     * root words, to be set before any document is read
+     */
+    public static void setStemming(boolean stemming) {
+        DataProcessor.stemming = stemming;
+    }
+
+    public static boolean isStemming() {
+        return stemming;
+    }
+
     public static String clean(String word) {
         return CebuanoNormalizer.normalize(word);
     }
@@ -20,23 +36,23 @@ public class DataProcessor {
     }
 
     public static List<String> preprocess(String sentence, boolean removeStopWords) {
-        List<String> wordList = new ArrayList<>(50);
-
-        // Split into words
-        wordList.addAll(Tokenizer.tokenize(sentence.toLowerCase()));
-
+        String lowerCased = sentence.toLowerCase();
         List<String> result = new ArrayList<>(50);
-        for (String word : wordList) {
-            if (word.length() != 0 && word.matches("^[a-zA-Z]*$") && !EnglishDictionary.isEnglishWord(word)) {
-                word = CebuanoNormalizer.normalize(word);
+
+        // Split into words made of letters only
+        Tokenizer.scanWords(lowerCased, (text, start, end) -> {
+            // English words are dropped without creating a string for them
+            if (!EnglishDictionary.isEnglishWord(lowerCased, start, end)) {
+                String word = CebuanoNormalizer.normalize(lowerCased.substring(start, end));
 
                 if (!removeStopWords || !StopWords.isStopWord(word)) {
-                    // word = CebuanoStemmer.getRootWord(word);
+                    if (stemming) {
+                        word = CebuanoStemmer.getRootWord(word);
+                    }
                     result.add(word);
                 }
             }
-
-        }
+        });
 
         return result;
     }
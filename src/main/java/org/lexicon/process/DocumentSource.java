@@ -0,0 +1,101 @@
+package org.lexicon.process;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.lexicon.Sentiment;
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.util.Metrics;
+import org.lexicon.util.SheetReader;
+
+/**
+ * Sentences of a document workbook, read one row at a time. The first row of
+ * the first sheet is a header, then each row has a sentence and its category.
+ *
+ * The first read saves the sentences in a {@link CorpusCache} next to the
+ * workbook, and later reads use the cache while the workbook is unchanged.
+ */
+public class DocumentSource {
+
+    private static final int SENTENCE_COLUMN = 0;
+    private static final int CATEGORY_COLUMN = 1;
+
+    private final String fileName;
+    private final boolean useCache;
+
+    public DocumentSource(String fileName) {
+        this(fileName, true);
+    }
+
+    public DocumentSource(String fileName, boolean useCache) {
+        this.fileName = fileName;
+        this.useCache = useCache;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Reads the workbook and passes each sentence to <code>action</code> in the
+     * order of the rows
+     */
+    public void forEach(Consumer<AnnotatedText> action) throws IOException {
+        if (!useCache) {
+            readWorkbook(action);
+            return;
+        }
+
+        CorpusCache cache = CorpusCache.open(fileName);
+        if (cache != null) {
+            Metrics.counter("corpusCache.hits").increment();
+            cache.forEach(action);
+            return;
+        }
+        Metrics.counter("corpusCache.misses").increment();
+
+        CorpusCache.Writer writer;
+        try {
+            writer = CorpusCache.create(fileName);
+        }
+        catch (IOException e) {
+            readWorkbook(action); // no cache when the folder is read-only
+            return;
+        }
+
+        try {
+            readWorkbook(sentence -> {
+                writer.add(sentence);
+                action.accept(sentence);
+            });
+            writer.commit();
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void readWorkbook(Consumer<AnnotatedText> action) throws IOException {
+        SheetReader.readFirstSheet(fileName, 2, (rowNum, cells) -> {
+            if (rowNum > 0) { // Assume row0 is header
+                String sentence = cells[SENTENCE_COLUMN].trim();
+                Sentiment sentiment = Sentiment.getValue(cells[CATEGORY_COLUMN]);
+                action.accept(new AnnotatedText(sentence, sentiment));
+            }
+        });
+    }
+
+    /**
+     * @return number of sentences of each category
+     */
+    public Map<Sentiment, Integer> countSentences() throws IOException {
+        Map<Sentiment, Integer> counts = new EnumMap<>(Sentiment.class);
+        for (Sentiment sentiment : Sentiment.values()) {
+            counts.put(sentiment, 0);
+        }
+        forEach(sentence -> counts.merge(sentence.getCategory(), 1, Integer::sum));
+        return counts;
+    }
+}
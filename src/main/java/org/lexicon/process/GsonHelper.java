@@ -9,11 +9,15 @@ import com.google.gson.GsonBuilder;
  */
 public class GsonHelper {
 
-    private static Gson mGsonInstance;
+    private static volatile Gson mGsonInstance;
 
     public static Gson createGson() {
-        if (mGsonInstance == null)
-            mGsonInstance = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        if (mGsonInstance == null) {
+            synchronized (GsonHelper.class) {
+                if (mGsonInstance == null)
+                    mGsonInstance = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+            }
+        }
 
         return mGsonInstance;
     }
@@ -0,0 +1,82 @@
+package org.lexicon.process;
+
+import static org.lexicon.util.ResourceUtil.CEBUANO_ROOTS_BIN;
+import static org.lexicon.util.ResourceUtil.CEBUANO_ROOTS_JSON;
+import static org.lexicon.util.ResourceUtil.CEBUANO_STEMMER_BIN;
+import static org.lexicon.util.ResourceUtil.CEBUANO_STEMMER_JSON;
+import static org.lexicon.util.ResourceUtil.CEBUANO_STOP_BIN;
+import static org.lexicon.util.ResourceUtil.CEBUANO_STOP_JSON;
+import static org.lexicon.util.ResourceUtil.ENGLISH_WORDS_BIN;
+import static org.lexicon.util.ResourceUtil.ENGLISH_WORDS_JSON;
+import static org.lexicon.util.ResourceUtil.TRANSLATIONS_BIN;
+import static org.lexicon.util.ResourceUtil.TRANSLATIONS_JSON;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.lexicon.data.TranslationIndex;
+import org.lexicon.process.stemmer.CebuanoStemmer;
+import org.lexicon.util.ResourceUtil;
+import org.lexicon.util.WordSet;
+
+/**
+ * Compiles the JSON resources into the binary ones that are loaded at run
+ * time, without parsing JSON. Runs when the project is built, see the pom, with the output
+ * directory of the classes as argument. Resources that are not there are
+ * skipped, and are then read from JSON if they show up at run time.
+ */
+public class ResourceCompiler {
+
+    // static methods only
+    private ResourceCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        File outputDirectory = new File(args.length > 0 ? args[0] : "target/classes");
+
+        compileWordSet(outputDirectory, CEBUANO_ROOTS_JSON, CEBUANO_ROOTS_BIN,
+                () -> ResourceUtil.parseJsonWords(CEBUANO_ROOTS_JSON));
+        compileWordSet(outputDirectory, CEBUANO_STOP_JSON, CEBUANO_STOP_BIN, StopWords::readJsonStopWords);
+        compileWordSet(outputDirectory, ENGLISH_WORDS_JSON, ENGLISH_WORDS_BIN,
+                () -> ResourceUtil.parseJsonWords(ENGLISH_WORDS_JSON));
+
+        if (exists(CEBUANO_STEMMER_JSON, CEBUANO_STEMMER_BIN)) {
+            write(outputDirectory, CEBUANO_STEMMER_BIN,
+                    CebuanoStemmer.compile(ResourceUtil.parseJson(CEBUANO_STEMMER_JSON)));
+        }
+        if (exists(TRANSLATIONS_JSON, TRANSLATIONS_BIN)) {
+            write(outputDirectory, TRANSLATIONS_BIN,
+                    TranslationIndex.compile(ResourceUtil.parseJson(TRANSLATIONS_JSON).getAsJsonObject()));
+        }
+    }
+
+    private static boolean exists(String jsonName, String resourceName) {
+        if (!ResourceUtil.exists(jsonName)) {
+            System.out.println("Skipped " + resourceName + ": " + jsonName + " not found");
+            return false;
+        }
+        return true;
+    }
+
+    private static void compileWordSet(File outputDirectory, String jsonName, String resourceName,
+            Supplier<Set<String>> words) throws IOException {
+        if (!exists(jsonName, resourceName)) {
+            return;
+        }
+        // Sorted, so the same words always give the same file
+        write(outputDirectory, resourceName, WordSet.toBytes(new TreeSet<>(words.get())));
+    }
+
+    private static void write(File outputDirectory, String resourceName, byte[] bytes) throws IOException {
+        File file = new File(outputDirectory, resourceName);
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        System.out.println("Compiled " + resourceName + ": " + bytes.length + " bytes");
+    }
+}
@@ -1,40 +1,44 @@
 package org.lexicon.process;
 
+import static org.lexicon.util.ResourceUtil.CEBUANO_STOP_BIN;
 import static org.lexicon.util.ResourceUtil.CEBUANO_STOP_JSON;
 
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
 import org.lexicon.util.ResourceUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.reflect.TypeToken;
+import org.lexicon.util.WordSet;
 
 public class StopWords {
 
-    private Set<String> stopWords;
-
-    private static StopWords instance;
+    private WordSet stopWords;
 
     private StopWords() {
-        Gson gson = GsonHelper.createGson();
-        JsonElement wordsJson = ResourceUtil.parseJson(CEBUANO_STOP_JSON);
-        stopWords = gson.fromJson(wordsJson, new TypeToken<HashSet<String>>() {}.getType());
-        stopWords = CebuanoNormalizer.normalize(stopWords);
+        stopWords = ResourceUtil.readWordSet(CEBUANO_STOP_BIN);
+        if (stopWords == null) {
+            stopWords = WordSet.of(readJsonStopWords());
+        }
+    }
+
+    /**
+     * @return normalized stop words of the JSON resource, which is what
+     *         {@link ResourceCompiler} compiles
+     */
+    static Set<String> readJsonStopWords() {
+        return CebuanoNormalizer.normalize(ResourceUtil.parseJsonWords(CEBUANO_STOP_JSON));
     }
 
-    public static boolean isStopWord(String word) {
+    public static boolean isStopWord(CharSequence word) {
         return getInstance().stopWords.contains(word);
     }
 
     private static StopWords getInstance() {
-        if (instance == null) {
-            instance = new StopWords();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static class InstanceHolder {
+        private static final StopWords INSTANCE = new StopWords();
     }
 
     public static List<String> removeStopWords(List<String> words) {
@@ -0,0 +1,91 @@
+package org.lexicon.process;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+import org.lexicon.Sentiment;
+import org.lexicon.TestResult;
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.util.Metrics;
+import org.lexicon.util.TableWriter;
+
+/**
+ * Writes test results one row at a time, followed by a summary of the metrics
+ * on a separate sheet. The format is picked by the file extension, see
+ * {@link TableWriter}; text files get the summary in a separate
+ * <code>-summary</code> file next to it.
+ */
+public class TestResultWriter implements Closeable {
+
+    private final TableWriter writer;
+
+    // From opening the file until it is closed, with a row as the item. It
+    // outlives any one method, so close() records it, also after a failed write.
+    private final Metrics.Phase phase;
+    private long rows = 0;
+
+    private TestResultWriter(TableWriter writer) throws IOException {
+        this.writer = writer;
+        phase = Metrics.startPhase("result.write");
+        try {
+            writer.writeRow("Sentence", "Classification", "Prediction");
+        }
+        catch (IOException | RuntimeException e) {
+            // The caller gets no writer to close
+            try {
+                close();
+            }
+            catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+    }
+
+    public static TestResultWriter open(String file) throws IOException {
+        return new TestResultWriter(TableWriter.open(file, "Test Result"));
+    }
+
+    public void writeRow(String sentence, Sentiment classification, Sentiment prediction) throws IOException {
+        writer.writeRow(sentence, classification.toString(), prediction.toString());
+        rows++;
+    }
+
+    public void writeRow(AnnotatedText sentence, Sentiment prediction) throws IOException {
+        writeRow(sentence.getText(), sentence.getCategory(), prediction);
+    }
+
+    /**
+     * Writes the metrics of the result; no rows can be written after it
+     */
+    public void writeSummary(TestResult testResult) throws IOException {
+        Map<Sentiment, Double> precision = testResult.getPrecision();
+        Map<Sentiment, Double> recall = testResult.getRecall();
+
+        writer.startSheet("Summary");
+        writer.writeRow("Accuracy:", format(testResult.getAccuracy()));
+        writer.writeRow("Precision:", format(testResult.getOverallPrecision()));
+        writer.writeRow("Recall:", format(testResult.getOverallRecall()));
+        writer.writeRow("F-Measure:", format(testResult.getFMeasure()));
+        for (Sentiment sentiment : Sentiment.values()) {
+            writer.writeRow(sentiment + " Precision:", format(precision.get(sentiment)));
+            writer.writeRow(sentiment + " Recall:", format(recall.get(sentiment)));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        }
+        finally {
+            phase.addItems(rows);
+            phase.close();
+        }
+    }
+
+    private static String format(double value) {
+        return String.format("%.4f", value);
+    }
+}
@@ -1,22 +1,40 @@
 package org.lexicon.process;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
+/**
+ * Splits sentences into words. Hyphens, punctuation (Unicode category P) and
+ * whitespace separate words.
+ */
 public class Tokenizer {
 
+    // Separator flags for the ASCII range, the rest goes through Character.getType
+    private static final boolean[] ASCII_SEPARATORS = new boolean[128];
+    static {
+        for (int c = 0; c < ASCII_SEPARATORS.length; c++) {
+            ASCII_SEPARATORS[c] = isWhitespace(c) || isPunctuation(c);
+        }
+    }
+
+    /**
+     * Receives each token found in a text as the <code>[start, end)</code> range
+     * of its characters
+     */
+    public interface TokenHandler {
+        void token(CharSequence text, int start, int end);
+    }
+
     private Tokenizer() {}
 
     public static List<String> tokenize(String sentence) {
-        String[] words = sentence.replaceAll("-", " ")
-                .replaceAll("\\p{P}", " ") // remove characters that are not non-alphanumeric and whitespaces(\s)
-                .trim()
-                .split("\\s+");            // split string in whitespaces
-
-        // Move strings in Array to List
         List<String> wordList = new ArrayList<>();
-        Collections.addAll(wordList, words);
+        scan(sentence, (text, start, end) -> wordList.add(sentence.substring(start, end)));
+
+        // Splitting a blank sentence used to give a single empty word
+        if (wordList.isEmpty()) {
+            wordList.add("");
+        }
         return wordList;
     }
 
@@ -27,4 +45,101 @@ public class Tokenizer {
         }
         return wordList;
     }
+
+    /**
+     * Finds the tokens of <code>text</code> in a single pass without creating any
+     * strings.
+     */
+    public static void scan(CharSequence text, TokenHandler handler) {
+        scan(text, handler, false);
+    }
+
+    /**
+     * Same as {@link #scan(CharSequence, TokenHandler)} but only reports tokens made
+     * of ASCII letters (a-z, A-Z)
+     */
+    public static void scanWords(CharSequence text, TokenHandler handler) {
+        scan(text, handler, true);
+    }
+
+    private static void scan(CharSequence text, TokenHandler handler, boolean lettersOnly) {
+        // Control characters at either end are dropped like String.trim() does
+        int start = 0;
+        int end = text.length();
+        while (start < end) {
+            int c = Character.codePointAt(text, start);
+            if (c > ' ' && !isSeparator(c)) {
+                break;
+            }
+            start += Character.charCount(c);
+        }
+        while (end > start) {
+            int c = Character.codePointBefore(text, end);
+            if (c > ' ' && !isSeparator(c)) {
+                break;
+            }
+            end -= Character.charCount(c);
+        }
+
+        int tokenStart = start;
+        boolean letters = true;
+        int i = start;
+        while (i < end) {
+            char ch = text.charAt(i);
+            int c = ch;
+            if (Character.isHighSurrogate(ch)) {
+                c = Character.codePointAt(text, i);
+            }
+
+            if (isSeparator(c)) {
+                if (tokenStart < i && (letters || !lettersOnly)) {
+                    handler.token(text, tokenStart, i);
+                }
+                i += Character.charCount(c);
+                tokenStart = i;
+                letters = true;
+            }
+            else {
+                if (letters && !isAsciiLetter(c)) {
+                    letters = false;
+                }
+                i += Character.charCount(c);
+            }
+        }
+        if (tokenStart < end && (letters || !lettersOnly)) {
+            handler.token(text, tokenStart, end);
+        }
+    }
+
+    private static boolean isSeparator(int c) {
+        if (c < ASCII_SEPARATORS.length) {
+            return ASCII_SEPARATORS[c];
+        }
+        return isPunctuation(c);
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // Same characters as the \s regular expression class
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Same characters as the \p{P} regular expression class; includes '-'
+    private static boolean isPunctuation(int c) {
+        switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
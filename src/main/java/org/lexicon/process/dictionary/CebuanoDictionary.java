@@ -1,44 +1,45 @@
 package org.lexicon.process.dictionary;
 
+import static org.lexicon.util.ResourceUtil.CEBUANO_ROOTS_BIN;
 import static org.lexicon.util.ResourceUtil.CEBUANO_ROOTS_JSON;
 
 import java.util.HashSet;
 import java.util.Set;
 
-import org.lexicon.process.GsonHelper;
 import org.lexicon.util.ResourceUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.reflect.TypeToken;
+import org.lexicon.util.WordSet;
 
 public class CebuanoDictionary {
 
-    private static final int MIN_ROOT_LENGTH = 3;
-
-    private static CebuanoDictionary instance;
+    public static final int MIN_ROOT_LENGTH = 3;
 
-    private Set<String> roots;
+    private WordSet roots;
 
     private static CebuanoDictionary getInstance() {
-        if (instance == null) {
-            instance = new CebuanoDictionary();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static class InstanceHolder {
+        private static final CebuanoDictionary INSTANCE = new CebuanoDictionary();
     }
 
     private CebuanoDictionary() {
-        Gson gson = GsonHelper.createGson();
-        JsonElement wordsJson = ResourceUtil.parseJson(CEBUANO_ROOTS_JSON);
-        roots = gson.fromJson(wordsJson, new TypeToken<Set<String>>() {}.getType());
+        roots = ResourceUtil.readWordSet(CEBUANO_ROOTS_BIN);
+        if (roots == null) {
+            roots = WordSet.of(ResourceUtil.parseJsonWords(CEBUANO_ROOTS_JSON));
+        }
     }
 
-    public static boolean isRootWord(String root) {
+    public static boolean isRootWord(CharSequence root) {
         CebuanoDictionary instance = getInstance();
         if (root.length() < MIN_ROOT_LENGTH) { return false; }
         return instance.roots.contains(root);
     }
 
+    public static WordSet getRootWords() {
+        return getInstance().roots;
+    }
+
     // public boolean isRootWordWithType(String root, String type) {
     // if (root.length() < MIN_ROOT_LENGTH) {
     // return false;
@@ -1,42 +1,45 @@
 package org.lexicon.process.dictionary;
 
+import static org.lexicon.util.ResourceUtil.ENGLISH_WORDS_BIN;
 import static org.lexicon.util.ResourceUtil.ENGLISH_WORDS_JSON;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-import org.lexicon.process.GsonHelper;
 import org.lexicon.util.ResourceUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.reflect.TypeToken;
+import org.lexicon.util.WordSet;
 
 public class EnglishDictionary {
 
-    private static EnglishDictionary instance;
-
-    private Set<String> englishWords;
+    private WordSet englishWords;
 
     private EnglishDictionary() {
-        Gson gson = GsonHelper.createGson();
-        JsonElement wordsJson = ResourceUtil.parseJson(ENGLISH_WORDS_JSON);
-        englishWords = gson.fromJson(wordsJson, new TypeToken<HashSet<String>>() {}.getType());
+        englishWords = ResourceUtil.readWordSet(ENGLISH_WORDS_BIN);
+        if (englishWords == null) {
+            englishWords = WordSet.of(ResourceUtil.parseJsonWords(ENGLISH_WORDS_JSON));
+        }
     }
 
     private static EnglishDictionary getInstance() {
-        if (instance == null) {
-            instance = new EnglishDictionary();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
-    public static boolean isEnglishWord(String word) {
+    private static class InstanceHolder {
+        private static final EnglishDictionary INSTANCE = new EnglishDictionary();
+    }
+
+    public static boolean isEnglishWord(CharSequence word) {
         return getInstance().englishWords.contains(word);
     }
 
+    /**
+     * @return whether the characters of <code>text</code> from
+     *         <code>start</code> until <code>end</code> are an English word
+     */
+    public static boolean isEnglishWord(CharSequence text, int start, int end) {
+        return getInstance().englishWords.contains(text, start, end);
+    }
+
     public static List<String> removeEnglishWords(List<String> wordList) {
         List<String> result = new ArrayList<>();
 
@@ -22,11 +22,9 @@ public class Affix {
     public List<String> getRootCandidates(String word) {
         List<String> rootCandidates = new ArrayList<>();
         for (AffixPattern pattern : patterns) {
-            if (AffixPattern.patternApplies(pattern, word)) {
-                String stripped = AffixPattern.stripPattern(pattern, word);
-                if (stripped != null) {
-                    rootCandidates.add(stripped);
-                }
+            String stripped = pattern.strip(word);
+            if (stripped != null) {
+                rootCandidates.add(stripped);
             }
         }
         return rootCandidates;
@@ -0,0 +1,316 @@
+package org.lexicon.process.stemmer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lexicon.util.WordSet;
+
+/**
+ * Patterns of all affixes, compiled once and indexed by the literal prefix and
+ * suffix they require, so that only the patterns a word can match are tried.
+ *
+ * Patterns are numbered in the order they are listed in the stemmer (group,
+ * affix, pattern) and candidates are always returned in that order.
+ *
+ * When only root words are wanted, the part of the word that a pattern keeps
+ * is looked up among the root words first, so that patterns giving no root word
+ * are left out before they are stripped.
+ */
+class AffixIndex {
+
+    // Letters a-z and '-'
+    private static final int ALPHABET = 27;
+
+    private final Affix[] affixes;
+    private final AffixPattern[] patterns;
+    private final String[] prefixes;
+    private final String[] suffixes;
+    private final String[] infixes;
+
+    // Text around the kept group in the root of simple patterns, null for the others
+    private final String[] rootPrefixes;
+    private final String[] rootSuffixes;
+
+    // Tries over the literal prefixes and the reversed literal suffixes
+    private final Trie prefixTrie;
+    private final Trie suffixTrie;
+
+    // Every pattern removes at least one character from the word
+    private final boolean shrinking;
+
+    // Literal that patterns of the form (...)infix(...) remove from the word, null
+    // for the others
+    private final String[] removedInfixes;
+
+    // Root words without the text that each pattern adds around the part of the
+    // word it keeps, null for patterns that keep no single part
+    private final WordHashes[] rootCores;
+
+    static class Candidate {
+
+        final Affix affix;
+        final String root;
+
+        Candidate(Affix affix, String root) {
+            this.affix = affix;
+            this.root = root;
+        }
+    }
+
+    AffixIndex(List<AffixGroup> groups, WordSet roots) {
+        List<Affix> affixList = new ArrayList<>();
+        List<AffixPattern> patternList = new ArrayList<>();
+        for (AffixGroup group : groups) {
+            for (Affix affix : group.affixes) {
+                for (AffixPattern pattern : affix.patterns) {
+                    affixList.add(affix);
+                    patternList.add(pattern);
+                }
+            }
+        }
+        affixes = affixList.toArray(new Affix[0]);
+        patterns = patternList.toArray(new AffixPattern[0]);
+        prefixTrie = new Trie();
+        suffixTrie = new Trie();
+        prefixes = new String[patterns.length];
+        suffixes = new String[patterns.length];
+        infixes = new String[patterns.length];
+        rootPrefixes = new String[patterns.length];
+        rootSuffixes = new String[patterns.length];
+
+        removedInfixes = new String[patterns.length];
+        rootCores = new WordHashes[patterns.length];
+        // Text added before and after the kept part, as {before, after}
+        List<List<String>> addedTexts = new ArrayList<>();
+
+        boolean allShrinking = true;
+        for (int i = 0; i < patterns.length; i++) {
+            AffixPattern pattern = patterns[i];
+            pattern.getRegex(); // compiles the pattern
+            prefixes[i] = pattern.getLiteralPrefix();
+            suffixes[i] = pattern.getLiteralSuffix();
+            infixes[i] = pattern.getLiteralInfix();
+            if (pattern.isSimple()) {
+                int group = pattern.root.indexOf("$1");
+                rootPrefixes[i] = pattern.root.substring(0, group);
+                rootSuffixes[i] = pattern.root.substring(group + 2);
+            }
+            allShrinking &= pattern.getMinimumShrink() > 0;
+
+            removedInfixes[i] = pattern.getRemovedInfix();
+            if (pattern.keepsGroup()) {
+                int group = pattern.root.indexOf("$1");
+                addedTexts.add(Arrays.asList(pattern.root.substring(0, group), pattern.root.substring(group + 2)));
+            }
+            else {
+                addedTexts.add(removedInfixes[i] != null ? Arrays.asList("", "") : null);
+            }
+
+            prefixTrie.add(prefixes[i], i);
+            suffixTrie.add(new StringBuilder(suffixes[i]).reverse().toString(), i);
+        }
+        shrinking = allShrinking;
+
+        // Patterns adding the same text share the root cores
+        List<String> rootList = new ArrayList<>(roots.size());
+        for (int i = 0; i < roots.size(); i++) {
+            rootList.add(roots.get(i));
+        }
+        Map<List<String>, WordHashes> coresByText = new HashMap<>();
+        for (int i = 0; i < patterns.length; i++) {
+            List<String> added = addedTexts.get(i);
+            if (added != null) {
+                rootCores[i] = coresByText.computeIfAbsent(added, key -> getRootCores(rootList, key.get(0), key.get(1)));
+            }
+        }
+    }
+
+    private static WordHashes getRootCores(List<String> roots, String before, String after) {
+        List<String> cores = new ArrayList<>();
+        for (String root : roots) {
+            if (root.length() >= before.length() + after.length() && root.startsWith(before) && root.endsWith(after)) {
+                cores.add(root.substring(before.length(), root.length() - after.length()));
+            }
+        }
+        return new WordHashes(cores);
+    }
+
+    /**
+     * @return the affixes that can be stripped from the word together with the
+     *         resulting root, same as calling {@link Affix#getRootCandidates(String)}
+     *         on every affix in order
+     */
+    List<Candidate> getRootCandidates(String word) {
+        return getRootCandidates(word, match(word));
+    }
+
+    /**
+     * @return the candidates of {@link #getRootCandidates(String)} whose root can
+     *         be a root word, the others may be left out
+     */
+    List<Candidate> getRootWordCandidates(String word) {
+        long[] matched = match(word);
+        long[] hashes = WordHashes.prefixHashes(word);
+        for (int block = 0; block < matched.length; block++) {
+            for (long bits = matched[block]; bits != 0; bits &= bits - 1) {
+                int pattern = (block << 6) + Long.numberOfTrailingZeros(bits);
+                if (!keepsRoot(pattern, word, hashes)) {
+                    matched[block] &= ~(1L << pattern);
+                }
+            }
+        }
+        return getRootCandidates(word, matched);
+    }
+
+    // Patterns whose literal prefix and suffix the word has, as a bit set
+    private long[] match(String word) {
+        long[] prefixMatched = prefixTrie.find(word, false);
+        long[] suffixMatched = suffixTrie.find(word, true);
+        long[] matched = new long[prefixMatched.length];
+        for (int block = 0; block < matched.length; block++) {
+            matched[block] = prefixMatched[block] & suffixMatched[block];
+        }
+        return matched;
+    }
+
+    /**
+     * @return <code>false</code> if the part of the word that the pattern keeps
+     *         is not the core of any root word, so the pattern gives no root word
+     */
+    private boolean keepsRoot(int pattern, String word, long[] hashes) {
+        WordHashes cores = rootCores[pattern];
+        if (cores == null) {
+            return true;
+        }
+        String infix = removedInfixes[pattern];
+        if (infix != null) {
+            for (int start = word.indexOf(infix); start >= 0; start = word.indexOf(infix, start + 1)) {
+                if (cores.containsWithout(hashes, start, start + infix.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int start = prefixes[pattern].length();
+        int end = word.length() - suffixes[pattern].length();
+        return start <= end && cores.contains(hashes, start, end);
+    }
+
+    private List<Candidate> getRootCandidates(String word, long[] matched) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int block = 0; block < matched.length; block++) {
+            long bits = matched[block];
+            while (bits != 0) {
+                int pattern = (block << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                String root = strip(pattern, word);
+                if (root != null) {
+                    candidates.add(new Candidate(affixes[pattern], root));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // Same as AffixPattern.strip(), for a word with the literal prefix and suffix
+    private String strip(int pattern, String word) {
+        if (!word.contains(infixes[pattern])) {
+            return null;
+        }
+        if (rootPrefixes[pattern] == null) {
+            return patterns[pattern].strip(word);
+        }
+
+        // ^prefix([a-z]+)suffix$
+        int start = prefixes[pattern].length();
+        int end = word.length() - suffixes[pattern].length();
+        if (start >= end) {
+            return null;
+        }
+        for (int j = start; j < end; j++) {
+            char c = word.charAt(j);
+            if (c < 'a' || c > 'z') {
+                return null;
+            }
+        }
+        return rootPrefixes[pattern] + word.substring(start, end) + rootSuffixes[pattern];
+    }
+
+    /**
+     * @return <code>true</code> if stripping any of the patterns always gives a
+     *         shorter word
+     */
+    boolean isShrinking() {
+        return shrinking;
+    }
+
+    private class Trie {
+
+        // Node 0 is the root and 0 also means "no transition"
+        private final List<int[]> transitions = new ArrayList<>();
+
+        // Patterns whose literal ends at each node or at one of its ancestors, as a
+        // bit set
+        private final List<long[]> nodePatterns = new ArrayList<>();
+
+        Trie() {
+            transitions.add(new int[ALPHABET]);
+            nodePatterns.add(new long[(patterns.length + 63) / 64]);
+        }
+
+        void add(String literal, int pattern) {
+            int node = 0;
+            for (char c : literal.toCharArray()) {
+                int symbol = toSymbol(c);
+                if (transitions.get(node)[symbol] == 0) {
+                    transitions.get(node)[symbol] = transitions.size();
+                    transitions.add(new int[ALPHABET]);
+                    nodePatterns.add(nodePatterns.get(node).clone());
+                }
+                node = transitions.get(node)[symbol];
+            }
+            addBelow(node, pattern);
+        }
+
+        private void addBelow(int node, int pattern) {
+            nodePatterns.get(node)[pattern >>> 6] |= 1L << pattern;
+            for (int child : transitions.get(node)) {
+                if (child != 0) {
+                    addBelow(child, pattern);
+                }
+            }
+        }
+
+        /**
+         * @return the patterns whose literal the word starts with (or ends with, if
+         *         <code>reverse</code> is set) as a bit set, not to be modified
+         */
+        long[] find(String word, boolean reverse) {
+            return nodePatterns.get(walk(word, reverse));
+        }
+
+        // Deepest node of the word's start (or end)
+        private int walk(String word, boolean reverse) {
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int symbol = toSymbol(word.charAt(reverse ? word.length() - 1 - i : i));
+                if (symbol < 0 || transitions.get(node)[symbol] == 0) {
+                    break;
+                }
+                node = transitions.get(node)[symbol];
+            }
+            return node;
+        }
+    }
+
+    private static int toSymbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return c == '-' ? ALPHABET - 1 : -1;
+    }
+}
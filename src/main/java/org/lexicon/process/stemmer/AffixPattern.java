@@ -16,27 +16,226 @@ public class AffixPattern {
     @Expose
     public String compiledPattern;
 
+    // Compiled on first use, Gson does not run field initializers
+    private transient volatile Pattern regex;
+
     public static boolean patternApplies(AffixPattern pattern, String word) {
-        String compiledPattern = pattern.compiledPattern;
-        if (compiledPattern == null) {
-            throw new NullPointerException("Pattern was not compiled");
+        return pattern.getRegex().matcher(word).matches();
+    }
+
+    public static String stripPattern(AffixPattern pattern, String word) {
+        return pattern.strip(word);
+    }
+
+    /**
+     * @return the word with this pattern's affix removed or <code>null</code> if
+     *         the pattern does not apply to the word
+     */
+    public String strip(String word) {
+        Matcher matcher = getRegex().matcher(word);
+        if (matcher.matches()) {
+            // The pattern is anchored, so the match is the whole word
+            String replacement = root != null ? root : "";
+            StringBuffer result = new StringBuffer(word.length());
+            matcher.appendReplacement(result, replacement);
+            matcher.appendTail(result);
+            return result.toString();
         }
         else {
-            // return word.matches(compiledPattern);
-            Matcher matcher = Pattern.compile(compiledPattern).matcher(word);
-            return matcher.matches();
+            return null;
         }
     }
 
-    public static String stripPattern(AffixPattern pattern, String word) {
-        String compiledPattern = pattern.compiledPattern;
+    /**
+     * @return literal characters a word has to start with for the pattern to apply
+     */
+    String getLiteralPrefix() {
+        String body = getBody();
+        if (!isAnalysable(body)) {
+            return "";
+        }
+        int end = 0;
+        while (end < body.length() && isMandatoryLiteral(body, end)) {
+            end++;
+        }
+        return body.substring(0, end);
+    }
 
-        if (patternApplies(pattern, word)) {
-            String replacement = pattern.root != null ? pattern.root : "";
-            return word.replaceAll(compiledPattern, replacement);
+    /**
+     * @return literal characters a word has to end with for the pattern to apply
+     */
+    String getLiteralSuffix() {
+        String body = getBody();
+        if (!isAnalysable(body)) {
+            return "";
         }
-        else {
+        int start = body.length();
+        while (start > 0 && isMandatoryLiteral(body, start - 1)) {
+            start--;
+        }
+        return body.substring(start);
+    }
+
+    /**
+     * @return <code>true</code> for patterns of the form
+     *         <code>^prefix([a-z]+)suffix$</code> that keep the group in the root
+     *         once, which can be stripped without the regular expression
+     */
+    boolean isSimple() {
+        String replacement = root != null ? root : "";
+        return getBody().matches("[a-z-]*\\(\\[a-z\\]\\+\\)[a-z-]*") && replacement.matches("[a-z-]*\\$1[a-z-]*");
+    }
+
+    /**
+     * @return <code>true</code> for patterns made of a literal prefix, a single
+     *         group and a literal suffix, whose root keeps the group once, so
+     *         that the root is the part of the word between the prefix and the
+     *         suffix with literal text around it
+     */
+    boolean keepsGroup() {
+        String body = getBody();
+        String replacement = root != null ? root : "";
+        if (!isAnalysable(body) || !replacement.matches("[a-z-]*\\$1[a-z-]*")) {
+            return false;
+        }
+        int start = getLiteralPrefix().length();
+        int end = body.length() - getLiteralSuffix().length();
+        return start < end && body.substring(start, end).matches("\\((?!\\?)[^()]*\\)");
+    }
+
+    /**
+     * @return the literal characters between the two groups of a pattern of the
+     *         form <code>(...)infix(...)</code> whose root is the groups joined,
+     *         so that the root is the word without the infix, otherwise
+     *         <code>null</code>
+     */
+    String getRemovedInfix() {
+        String body = getBody();
+        if (!isAnalysable(body) || !"$1$2".equals(root)) {
             return null;
         }
+        Matcher matcher = Pattern.compile("\\((?!\\?)[^()]*\\)([a-z-]+)\\((?!\\?)[^()]*\\)").matcher(body);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * @return the longest run of literal characters outside of the groups, which
+     *         every word the pattern applies to contains
+     */
+    String getLiteralInfix() {
+        String body = getBody();
+        if (!isAnalysable(body)) {
+            return "";
+        }
+        String longest = "";
+        int depth = 0;
+        boolean inClass = false;
+        int start = -1;
+        for (int i = 0; i <= body.length(); i++) {
+            boolean literal = i < body.length() && depth == 0 && !inClass && isMandatoryLiteral(body, i);
+            if (literal && start < 0) {
+                start = i;
+            }
+            else if (!literal && start >= 0) {
+                if (i - start > longest.length()) {
+                    longest = body.substring(start, i);
+                }
+                start = -1;
+            }
+
+            char c = i < body.length() ? body.charAt(i) : 0;
+            if (c == '[') {
+                inClass = true;
+            }
+            else if (c == ']') {
+                inClass = false;
+            }
+            else if (c == '(' && !inClass) {
+                depth++;
+            }
+            else if (c == ')' && !inClass) {
+                depth--;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * @return the least number of characters that stripping this pattern removes
+     *         from a word, <code>0</code> if that cannot be told from the pattern
+     */
+    int getMinimumShrink() {
+        String body = getBody();
+        if (!isAnalysable(body)) {
+            return 0;
+        }
+
+        // Characters outside of the groups are removed, the groups are kept
+        int removed = 0;
+        int depth = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '(') {
+                depth++;
+            }
+            else if (c == ')') {
+                depth--;
+                if (i + 1 < body.length() && isQuantifier(body.charAt(i + 1))) {
+                    return 0;
+                }
+            }
+            else if (depth == 0) {
+                if (!isMandatoryLiteral(body, i)) {
+                    return 0;
+                }
+                removed++;
+            }
+        }
+
+        String replacement = root != null ? root : "";
+        if (!replacement.matches("([a-z-]|\\$[1-9])*") || replacement.matches(".*(\\$[1-9]).*\\1.*")) {
+            return 0;
+        }
+        int added = replacement.replaceAll("\\$[1-9]", "").length();
+        return Math.max(removed - added, 0);
+    }
+
+    Pattern getRegex() {
+        Pattern compiled = regex;
+        if (compiled == null) {
+            if (compiledPattern == null) {
+                throw new NullPointerException("Pattern was not compiled");
+            }
+            compiled = Pattern.compile(compiledPattern);
+            regex = compiled;
+        }
+        return compiled;
+    }
+
+    // Pattern without the ^ and $ anchors
+    private String getBody() {
+        if (compiledPattern == null) {
+            throw new NullPointerException("Pattern was not compiled");
+        }
+        int start = compiledPattern.startsWith("^") ? 1 : 0;
+        int end = compiledPattern.endsWith("$") ? compiledPattern.length() - 1 : compiledPattern.length();
+        return compiledPattern.substring(start, end);
+    }
+
+    // Alternatives and escapes are not looked into
+    private static boolean isAnalysable(String body) {
+        return body.indexOf('|') < 0 && body.indexOf('\\') < 0;
+    }
+
+    private static boolean isMandatoryLiteral(String body, int i) {
+        char c = body.charAt(i);
+        if ((c < 'a' || c > 'z') && c != '-') {
+            return false;
+        }
+        return i + 1 == body.length() || !isQuantifier(body.charAt(i + 1));
+    }
+
+    private static boolean isQuantifier(char c) {
+        return c == '?' || c == '*' || c == '+' || c == '{';
     }
 }
@@ -1,16 +1,25 @@
 package org.lexicon.process.stemmer;
 
+import static org.lexicon.util.ResourceUtil.CEBUANO_STEMMER_BIN;
 import static org.lexicon.util.ResourceUtil.CEBUANO_STEMMER_JSON;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.lexicon.process.CebuanoNormalizer;
 import org.lexicon.process.GsonHelper;
 import org.lexicon.process.dictionary.CebuanoDictionary;
+import org.lexicon.util.LruCache;
 import org.lexicon.util.ResourceUtil;
 
 import com.google.gson.Gson;
@@ -24,8 +33,6 @@ import com.google.gson.reflect.TypeToken;
  */
 public class CebuanoStemmer {
 
-    private static CebuanoStemmer instance;
-
     @Expose
     private List<AffixGroup> groups;
 
@@ -35,17 +42,148 @@ public class CebuanoStemmer {
     @Expose
     private String language;
 
-    private static Map<String, String> rootCache = new HashMap<>();
+    private transient AffixIndex index;
+
+    static final int MAGIC = 0x4C584353;
+
+    public static final int DEFAULT_CACHE_SIZE = 100000;
+
+    private static volatile LruCache<String, String> rootCache = new LruCache<>(DEFAULT_CACHE_SIZE);
 
     private CebuanoStemmer() {}
 
     private static CebuanoStemmer getInstance() {
-        if (instance == null) {
-            JsonElement stemmerJson = ResourceUtil.parseJson(CEBUANO_STEMMER_JSON);
-            Gson gson = GsonHelper.createGson();
-            instance = gson.fromJson(stemmerJson, new TypeToken<CebuanoStemmer>() {}.getType());
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static class InstanceHolder {
+        static final CebuanoStemmer INSTANCE = load();
+
+        private static CebuanoStemmer load() {
+            ByteBuffer bytes = ResourceUtil.readBytes(CEBUANO_STEMMER_BIN);
+            CebuanoStemmer stemmer = bytes != null ? read(bytes) : null;
+            if (stemmer == null) {
+                stemmer = parse(ResourceUtil.parseJson(CEBUANO_STEMMER_JSON));
+            }
+            stemmer.index = new AffixIndex(stemmer.groups, CebuanoDictionary.getRootWords());
+            return stemmer;
+        }
+    }
+
+    private static CebuanoStemmer parse(JsonElement stemmerJson) {
+        Gson gson = GsonHelper.createGson();
+        return gson.fromJson(stemmerJson, new TypeToken<CebuanoStemmer>() {}.getType());
+    }
+
+    /**
+     * Compiles the stemmer JSON into the binary resource read at run time:
+     *
+     * <pre>
+     * int      magic "LXCS"
+     * string   language
+     * int      constant count, then each name and value
+     * int      group count, then each group:
+     *   string   name
+     *   int      affix count, then each form, label, root type and
+     *            pattern count, followed by each pattern, root and
+     *            compiled pattern
+     * </pre>
+     *
+     * Strings are an int byte length, -1 for <code>null</code>, and the UTF-8
+     * bytes.
+     */
+    public static byte[] compile(JsonElement stemmerJson) throws IOException {
+        CebuanoStemmer stemmer = parse(stemmerJson);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            writeString(out, stemmer.language);
+            Map<String, String> constants = stemmer.constants != null ? stemmer.constants : new HashMap<>();
+            out.writeInt(constants.size());
+            for (Map.Entry<String, String> constant : constants.entrySet()) {
+                writeString(out, constant.getKey());
+                writeString(out, constant.getValue());
+            }
+
+            out.writeInt(stemmer.groups.size());
+            for (AffixGroup group : stemmer.groups) {
+                writeString(out, group.name);
+                out.writeInt(group.affixes.size());
+                for (Affix affix : group.affixes) {
+                    writeString(out, affix.form);
+                    writeString(out, affix.label);
+                    writeString(out, affix.rootType);
+                    out.writeInt(affix.patterns.size());
+                    for (AffixPattern pattern : affix.patterns) {
+                        writeString(out, pattern.pattern);
+                        writeString(out, pattern.root);
+                        writeString(out, pattern.compiledPattern);
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return <code>null</code> if the buffer does not hold compiled rules
+     */
+    private static CebuanoStemmer read(ByteBuffer buffer) {
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        CebuanoStemmer stemmer = new CebuanoStemmer();
+        stemmer.language = readString(buffer);
+        int constantCount = buffer.getInt();
+        stemmer.constants = new LinkedHashMap<>();
+        for (int i = 0; i < constantCount; i++) {
+            stemmer.constants.put(readString(buffer), readString(buffer));
+        }
+
+        int groupCount = buffer.getInt();
+        stemmer.groups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            AffixGroup group = new AffixGroup(readString(buffer));
+            int affixCount = buffer.getInt();
+            for (int a = 0; a < affixCount; a++) {
+                Affix affix = new Affix();
+                affix.form = readString(buffer);
+                affix.label = readString(buffer);
+                affix.rootType = readString(buffer);
+                int patternCount = buffer.getInt();
+                affix.patterns = new ArrayList<>(patternCount);
+                for (int p = 0; p < patternCount; p++) {
+                    AffixPattern pattern = new AffixPattern();
+                    pattern.pattern = readString(buffer);
+                    pattern.root = readString(buffer);
+                    pattern.compiledPattern = readString(buffer);
+                    affix.patterns.add(pattern);
+                }
+                group.affixes.add(affix);
+            }
+            stemmer.groups.add(group);
+        }
+        return stemmer;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
         }
-        return instance;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 
     public static List<AffixGroup> getGroups() {
@@ -61,69 +199,137 @@ public class CebuanoStemmer {
     }
 
     public static String getRootWord(String word) {
-        String cachedResult = rootCache.get(word);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
-        else {
-            List<Derivation> derivations = findDerivations(word);
-            if (derivations.size() == 0) { return word; }
-            String rootWord = derivations.get(derivations.size() - 1).root;
-            // System.out.println(word + " -> " + rootWord);
-            rootCache.put(word, rootWord);
-            return rootWord;
-        }
+        // Words without a derivation are cached as null
+        String rootWord = rootCache.get(word, key -> {
+            List<Derivation> derivations = findDerivations(key);
+            if (derivations.size() == 0) { return null; }
+            return derivations.get(derivations.size() - 1).root;
+        });
+        // System.out.println(word + " -> " + rootWord);
+        return rootWord != null ? rootWord : word;
+    }
+
+    /**
+     * Replaces the cache of {@link #getRootWord(String)} results with an empty
+     * one holding at most <code>size</code> words
+     */
+    public static void setCacheSize(int size) {
+        rootCache = new LruCache<>(size);
+    }
+
+    public static LruCache<String, String> getRootCache() {
+        return rootCache;
     }
 
     public static List<Derivation> findDerivations(String word) {
         String normalizedWord = CebuanoNormalizer.normalize(word);
-        return findDerivations(getInstance(), normalizedWord, new HashSet<>(), 0);
+        return getInstance().new Search().findDerivations(normalizedWord, 0);
     }
 
-    private static List<Derivation> findDerivations(CebuanoStemmer stemmer, String word, HashSet<String> handledRoots,
-            int level) {
-        List<Derivation> derivations;
+    /**
+     * Derivations of a single word. Each root is listed once, with the affixes of
+     * the first derivation that reaches it in a depth-first search.
+     *
+     * A word can be reached through different affixes and levels, so the
+     * derivations of each word and level are kept and reused during the search.
+     * At the last level only stripping to a root word counts, so the patterns
+     * whose kept part is not found among the root words are not stripped.
+     */
+    private class Search {
 
-        if (stemmer.groups.size() <= level) {
-            derivations = new ArrayList<>();
-            if (!handledRoots.contains(word) && CebuanoDictionary.isRootWord(word)) {
-                ArrayList<Affix> affixes = new ArrayList<>();
-                Derivation derivation = new Derivation(word, affixes);
-                derivations.add(derivation);
-                handledRoots.add(word);
+        private final List<Map<String, List<Derivation>>> results = new ArrayList<>();
+
+        private final Map<String, List<AffixIndex.Candidate>> candidates = new HashMap<>();
+
+        Search() {
+            for (int level = 0; level <= groups.size(); level++) {
+                results.add(new HashMap<>());
             }
-            return derivations;
         }
-        else {
-            derivations = findDerivations(stemmer, word, handledRoots, level + 1);
+
+        List<Derivation> findDerivations(String word, int level) {
+            Map<String, List<Derivation>> levelResults = results.get(level);
+            List<Derivation> derivations = levelResults.get(word);
+            if (derivations == null) {
+                derivations = search(word, level);
+                levelResults.put(word, derivations);
+            }
+            return derivations;
         }
 
-        // AffixGroup group = stemmer.groups.get(level);
-        for (AffixGroup group : stemmer.groups) {
-            List<Affix> affixes = group.affixes;
-            for (Affix affix : affixes) {
-                List<String> rootCandidates = affix.getRootCandidates(word);
-                for (String root : rootCandidates) {
-                    if (!handledRoots.contains(root) && CebuanoDictionary.isRootWord(root)) {
-                        ArrayList<Affix> affixes2 = new ArrayList<>();
-                        Derivation derivation = new Derivation(root, affixes2);
-                        derivation.affixes.add(affix);
-                        derivations.add(derivation);
-                        handledRoots.add(root);
+        private List<Derivation> search(String word, int level) {
+            List<Derivation> derivations = new ArrayList<>();
+
+            if (groups.size() <= level) {
+                if (CebuanoDictionary.isRootWord(word)) {
+                    derivations.add(new Derivation(word, new ArrayList<>()));
+                }
+                return derivations;
+            }
+
+            // Fetched before the word is looked up at the next levels, which then reuse them.
+            // Searching the word at the next level looks up its roots at the level after,
+            // so the candidates of the roots are fetched here as well.
+            List<AffixIndex.Candidate> wordCandidates = getRootCandidates(word, level);
+            if (level + 1 < groups.size() - 1) {
+                for (AffixIndex.Candidate candidate : wordCandidates) {
+                    if (isSearched(candidate.root)) {
+                        getRootCandidates(candidate.root, level + 1);
                     }
+                }
+            }
+
+            Set<String> handledRoots = new HashSet<>();
+            for (Derivation derivation : findDerivations(word, level + 1)) {
+                derivations.add(derivation);
+                handledRoots.add(derivation.root);
+            }
+
+            for (AffixIndex.Candidate candidate : wordCandidates) {
+                Affix affix = candidate.affix;
+                String root = candidate.root;
+                if (!handledRoots.contains(root) && CebuanoDictionary.isRootWord(root)) {
+                    ArrayList<Affix> affixes = new ArrayList<>();
+                    affixes.add(affix);
+                    derivations.add(new Derivation(root, affixes));
+                    handledRoots.add(root);
+                }
 
-                    List<Derivation> innerDerivations = findDerivations(stemmer, root, handledRoots, level + 1);
+                if (!isSearched(root)) {
+                    continue;
+                }
 
-                    // Copy the found derivations to the result list with the current affix as
-                    // additional affix:
-                    for (Derivation derivation : innerDerivations) {
-                        derivation.affixes.add(affix);
-                        derivations.add(derivation);
+                // Copy the found derivations to the result list with the current affix as
+                // additional affix:
+                for (Derivation inner : findDerivations(root, level + 1)) {
+                    if (handledRoots.add(inner.root)) {
+                        ArrayList<Affix> affixes = new ArrayList<>(inner.affixes);
+                        affixes.add(affix);
+                        derivations.add(new Derivation(inner.root, affixes));
                     }
                 }
             }
+            return derivations;
+        }
+
+        // Stripping more affixes from a short word can only give shorter words, none of
+        // which is a root
+        private boolean isSearched(String root) {
+            return !index.isShrinking() || root.length() > CebuanoDictionary.MIN_ROOT_LENGTH;
+        }
+
+        private List<AffixIndex.Candidate> getRootCandidates(String word, int level) {
+            List<AffixIndex.Candidate> wordCandidates = candidates.get(word);
+            if (wordCandidates == null) {
+                // Candidates of the last level are only checked for being roots
+                if (level == groups.size() - 1) {
+                    return index.getRootWordCandidates(word);
+                }
+                wordCandidates = index.getRootCandidates(word);
+                candidates.put(word, wordCandidates);
+            }
+            return wordCandidates;
         }
-        return derivations;
     }
 
     public static List<String> stemWords(List<String> wordList) {
@@ -0,0 +1,111 @@
+package org.lexicon.process.stemmer;
+
+import java.util.Collection;
+
+/**
+ * Set of words kept as 64 bit polynomial hashes, so that any part of a word can
+ * be looked up from the hashes of its prefixes without creating a string. A
+ * word that is not in the set is found in it about once in 2^64 / size lookups.
+ */
+class WordHashes {
+
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+
+    // Open addressing table of the hashes, 0 for an empty slot
+    private final long[] table;
+    private final int mask;
+
+    // BASE to the power of each length up to the longest word
+    private final long[] powers;
+
+    WordHashes(Collection<String> words) {
+        table = new long[Integer.highestOneBit(Math.max(words.size(), 1) * 2 - 1) * 2];
+        mask = table.length - 1;
+
+        int maxLength = 0;
+        for (String word : words) {
+            maxLength = Math.max(maxLength, word.length());
+        }
+        powers = new long[maxLength + 1];
+        powers[0] = 1;
+        for (int i = 1; i <= maxLength; i++) {
+            powers[i] = powers[i - 1] * BASE;
+        }
+
+        for (String word : words) {
+            long hash = key(hash(prefixHashes(word), 0, word.length()));
+            int slot = slot(hash);
+            while (table[slot] != 0 && table[slot] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = hash;
+        }
+    }
+
+    /**
+     * @return hashes of the prefixes of the word, the one of its first
+     *         <code>i</code> characters at index <code>i</code>
+     */
+    static long[] prefixHashes(CharSequence word) {
+        long[] hashes = new long[word.length() + 1];
+        for (int i = 0; i < word.length(); i++) {
+            hashes[i + 1] = hashes[i] * BASE + word.charAt(i) + 1;
+        }
+        return hashes;
+    }
+
+    /**
+     * @return whether the characters from <code>start</code> until
+     *         <code>end</code> of the word whose prefix hashes are given are
+     *         (most likely) a word of the set
+     */
+    boolean contains(long[] prefixHashes, int start, int end) {
+        // Longer than any word of the set
+        if (end - start >= powers.length) {
+            return false;
+        }
+        return find(key(hash(prefixHashes, start, end)));
+    }
+
+    /**
+     * @return whether the word whose prefix hashes are given is (most likely) a
+     *         word of the set once the characters from <code>start</code> until
+     *         <code>end</code> are removed
+     */
+    boolean containsWithout(long[] prefixHashes, int start, int end) {
+        int length = prefixHashes.length - 1;
+        if (length - (end - start) >= powers.length) {
+            return false;
+        }
+        long hash = hash(prefixHashes, 0, start) * powers[length - end] + hash(prefixHashes, end, length);
+        return find(key(hash));
+    }
+
+    private boolean find(long hash) {
+        int slot = slot(hash);
+        long value;
+        while ((value = table[slot]) != 0) {
+            if (value == hash) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private long hash(long[] prefixHashes, int start, int end) {
+        return prefixHashes[end] - prefixHashes[start] * powers[end - start];
+    }
+
+    // Never 0, which marks an empty slot
+    private static long key(long hash) {
+        return hash != 0 ? hash : 1;
+    }
+
+    private int slot(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
@@ -0,0 +1,145 @@
+package org.lexicon.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache that holds at most a fixed number of entries and evicts the
+ * least recently used ones. Keys are spread over independently locked segments,
+ * each with its own share of the capacity.
+ *
+ * A <code>null</code> value returned by the loader is cached as well, so a key
+ * known to have no value is not looked up again.
+ */
+public class LruCache<K, V> {
+
+    public static final int DEFAULT_SEGMENTS = 16;
+
+    private static final Object NULL = new Object();
+
+    private final Segment[] segments;
+
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(int capacity) {
+        this(capacity, DEFAULT_SEGMENTS);
+    }
+
+    public LruCache(int capacity, int segmentCount) {
+        if (capacity < 1 || segmentCount < 1) {
+            throw new IllegalArgumentException("Capacity and segment count must be positive");
+        }
+        segmentCount = Math.min(segmentCount, capacity);
+        this.capacity = capacity;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // The first segments take the remainder
+            int segmentCapacity = capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0);
+            segments[i] = new Segment(segmentCapacity, evictions);
+        }
+    }
+
+    /**
+     * @return the cached value of the key, computing and caching it with
+     *         <code>loader</code> if it is not cached. The loader runs without
+     *         holding a lock, so it may run more than once for the same key.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Segment segment = segmentFor(key);
+        Object cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached == NULL ? null : (V) cached;
+        }
+
+        misses.increment();
+        V value = loader.apply(key);
+        synchronized (segment) {
+            segment.put(key, value == null ? NULL : value);
+        }
+        return value;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return number of cached entries, including the cached <code>null</code> values
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d, hits=%d, misses=%d, evictions=%d", size(), capacity, getHitCount(),
+                getMissCount(), getEvictionCount());
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return segments[(h & 0x7FFFFFFF) % segments.length];
+    }
+
+    private static class Segment extends LinkedHashMap<Object, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int segmentCapacity;
+
+        private final LongAdder evictions;
+
+        Segment(int segmentCapacity, LongAdder evictions) {
+            super(16, 0.75f, true); // iterates in access order
+            this.segmentCapacity = segmentCapacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
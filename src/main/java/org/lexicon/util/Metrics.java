@@ -0,0 +1,353 @@
+package org.lexicon.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.gson.GsonBuilder;
+
+/**
+ * Counters, histograms and phase timers of the current run, kept by name. All
+ * of them can be updated from any thread. The values are reported as JSON by
+ * {@link #writeReport(String)} and through JMX after {@link #registerMBean()}.
+ *
+ * <pre>
+ * try (Metrics.Phase phase = Metrics.startPhase("preprocess")) {
+ *     ...
+ *     phase.addItems(tokenCount);
+ * }
+ * </pre>
+ */
+public class Metrics {
+
+    public static final String OBJECT_NAME = "org.lexicon:type=Metrics";
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // static methods only
+    private Metrics() {}
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer());
+    }
+
+    /**
+     * Starts timing a phase, which is added to the timer of the same name when
+     * closed
+     */
+    public static Phase startPhase(String name) {
+        return new Phase(timer(name));
+    }
+
+    public static void reset() {
+        counters.clear();
+        histograms.clear();
+        timers.clear();
+    }
+
+    /**
+     * @return values of every metric, sorted by name
+     */
+    public static Map<String, Object> getReport() {
+        Map<String, Object> counterValues = new TreeMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().get());
+        }
+        Map<String, Object> timerValues = new TreeMap<>();
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            timerValues.put(entry.getKey(), entry.getValue().getReport());
+        }
+        Map<String, Object> histogramValues = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            histogramValues.put(entry.getKey(), entry.getValue().getReport());
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("counters", counterValues);
+        report.put("timers", timerValues);
+        report.put("histograms", histogramValues);
+        return report;
+    }
+
+    public static String toJson() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(getReport());
+    }
+
+    /**
+     * @return <code>true</code> if successful
+     */
+    public static boolean writeReport(String file) {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(toJson());
+            return true;
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Makes the metrics readable through JMX as {@value #OBJECT_NAME}
+     *
+     * @return <code>true</code> if successful or already registered
+     */
+    public static boolean registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MBean(), name);
+            }
+            return true;
+        }
+        catch (JMException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public static class Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * Total time and number of items of a phase, over every time it ran
+     */
+    public static class Timer {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder items = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        public void record(long nanos, long itemCount) {
+            count.increment();
+            totalNanos.add(nanos);
+            items.add(itemCount);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        public long getItems() {
+            return items.sum();
+        }
+
+        Map<String, Object> getReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            long nanos = totalNanos.sum();
+            report.put("count", getCount());
+            report.put("totalMillis", nanos / 1e6);
+            report.put("maxMillis", maxNanos.get() / 1e6);
+            if (getItems() > 0) {
+                report.put("items", getItems());
+                report.put("itemsPerSecond", nanos > 0 ? getItems() * 1e9 / nanos : 0);
+            }
+            return report;
+        }
+    }
+
+    public static class Phase implements AutoCloseable {
+
+        private final Timer timer;
+        private final long start = System.nanoTime();
+        private long items = 0;
+        private boolean closed = false;
+
+        private Phase(Timer timer) {
+            this.timer = timer;
+        }
+
+        /**
+         * Counts items handled by the phase, like sentences or tokens
+         */
+        public void addItems(long n) {
+            items += n;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                timer.record(System.nanoTime() - start, items);
+            }
+        }
+    }
+
+    /**
+     * Distribution of non-negative values, in buckets that are within 1/16 of
+     * their values
+     */
+    public static class Histogram {
+
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            buckets.incrementAndGet(getBucket(value));
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMean() {
+            long n = getCount();
+            return n > 0 ? (double) sum.sum() / n : 0;
+        }
+
+        /**
+         * @param percentile from 0 to 100
+         * @return approximate value, 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            long n = getCount();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(n * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(Math.max(getMidpoint(i), min.get()), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        Map<String, Object> getReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            long n = getCount();
+            report.put("count", n);
+            report.put("min", n > 0 ? min.get() : 0);
+            report.put("max", max.get());
+            report.put("mean", getMean());
+            report.put("p50", getPercentile(50));
+            report.put("p90", getPercentile(90));
+            report.put("p99", getPercentile(99));
+            return report;
+        }
+
+        // Values below 16 have their own bucket, then 16 buckets per power of 2
+        static int getBucket(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < SUB_BITS) {
+                return (int) value;
+            }
+            int shift = exponent - SUB_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+        }
+
+        static long getMidpoint(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) / 2;
+        }
+    }
+
+    public interface MetricsMXBean {
+
+        Map<String, Long> getCounters();
+
+        Map<String, Double> getTimerMillis();
+
+        /**
+         * @return every metric as JSON, same as the report file
+         */
+        String getReport();
+
+        void reset();
+    }
+
+    private static class MBean implements MetricsMXBean {
+
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> values = new TreeMap<>();
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                values.put(entry.getKey(), entry.getValue().get());
+            }
+            return values;
+        }
+
+        @Override
+        public Map<String, Double> getTimerMillis() {
+            Map<String, Double> values = new TreeMap<>();
+            for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+                values.put(entry.getKey(), entry.getValue().getTotalMillis());
+            }
+            return values;
+        }
+
+        @Override
+        public String getReport() {
+            return toJson();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -15,7 +15,7 @@ public class ProgressBar {
         step(1);
     }
 
-    public void step(int i) {
+    public synchronized void step(int i) {
         currentProgress += i;
         printProgress();
     }
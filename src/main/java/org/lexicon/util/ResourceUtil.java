@@ -1,10 +1,25 @@
 package org.lexicon.util;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonParser;
 
 public class ResourceUtil {
@@ -15,9 +30,26 @@ public class ResourceUtil {
     public static final String ENGLISH_WORDS_JSON = "json/english_words.json";
     public static final String TRANSLATIONS_JSON = "json/translations.json";
 
+    // Compiled from the JSON resources when the project is built, see ResourceCompiler
+    public static final String CEBUANO_ROOTS_BIN = "bin/cebuano_roots.bin";
+    public static final String CEBUANO_STOP_BIN = "bin/cebuano_stop_words.bin";
+    public static final String ENGLISH_WORDS_BIN = "bin/english_words.bin";
+    public static final String CEBUANO_STEMMER_BIN = "bin/cebuano_stemmer.bin";
+    public static final String TRANSLATIONS_BIN = "bin/translations.bin";
+
     public static JsonElement parseJson(String resourceName) {
         JsonParser parser = new JsonParser();
-        return parser.parse(readFile(resourceName));
+        InputStream in = ClassLoaderUtil.getResourceAsStream(resourceName, ResourceUtil.class);
+        if (in == null) {
+            throw new IllegalArgumentException("Resource not found: " + resourceName);
+        }
+        // Parsed from the stream, without reading the whole file into a string first
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return parser.parse(reader);
+        }
+        catch (IOException e) {
+            throw new JsonIOException(e);
+        }
     }
 
     public static String readFile(String resourceName) {
@@ -40,5 +72,75 @@ public class ResourceUtil {
         return result;
     }
 
+    /**
+     * @return words of a JSON array resource, in order
+     */
+    public static Set<String> parseJsonWords(String resourceName) {
+        Set<String> words = new LinkedHashSet<>();
+        for (JsonElement word : parseJson(resourceName).getAsJsonArray()) {
+            words.add(word.getAsString());
+        }
+        return words;
+    }
+
+    public static boolean exists(String resourceName) {
+        return ClassLoaderUtil.getResource(resourceName, ResourceUtil.class) != null;
+    }
+
+    /**
+     * Reads a binary resource into a direct buffer. Resources that are plain
+     * files, like when running from the build directory, are mapped instead.
+     *
+     * @return contents of the resource, or <code>null</code> if there is no
+     *         such resource or it cannot be read
+     */
+    public static ByteBuffer readBytes(String resourceName) {
+        URL url = ClassLoaderUtil.getResource(resourceName, ResourceUtil.class);
+        if (url == null) {
+            return null;
+        }
+
+        try {
+            if ("file".equals(url.getProtocol())) {
+                try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+
+            URLConnection connection = url.openConnection();
+            long length = connection.getContentLengthLong();
+            try (ReadableByteChannel channel = Channels.newChannel(connection.getInputStream())) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(length >= 0 ? (int) length : 1 << 16);
+                while (channel.read(buffer) >= 0) {
+                    if (!buffer.hasRemaining()) {
+                        if (length >= 0) {
+                            break;
+                        }
+                        // Unknown length, grow until the end of the stream
+                        ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                        buffer.flip();
+                        larger.put(buffer);
+                        buffer = larger;
+                    }
+                }
+                buffer.flip();
+                return buffer;
+            }
+        }
+        catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return word set compiled into the resource, or <code>null</code> if the
+     *         resource is not there, like when running without a full build
+     */
+    public static WordSet readWordSet(String resourceName) {
+        ByteBuffer bytes = readBytes(resourceName);
+        return bytes != null ? WordSet.read(bytes) : null;
+    }
+
     private ResourceUtil() {}
 }
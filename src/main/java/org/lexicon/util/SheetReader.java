@@ -0,0 +1,433 @@
+package org.lexicon.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads the rows of a workbook sheet one at a time, through the SAX parser for
+ * .xlsx and the record events for .xls files, without loading the workbook.
+ * Files ending in .csv or .tsv are read as delimited text.
+ */
+public class SheetReader {
+
+    /**
+     * Receives the formatted values of a row's cells; empty cells are
+     * <code>""</code>
+     */
+    public interface RowHandler {
+        void row(int rowNum, String[] cells);
+    }
+
+    // static methods only
+    private SheetReader() {}
+
+    /**
+     * Passes each row of the first sheet that has a value in any cell to the
+     * handler, in order
+     *
+     * @param columns number of columns to read from the start of each row
+     */
+    public static void readFirstSheet(String file, int columns, RowHandler handler) throws IOException {
+        readFirstSheet(file, columns, false, handler);
+    }
+
+    /**
+     * @param rawNumbers
+     *            whether numeric cells are read as their exact value, like
+     *            {@link #formatRaw(double)}, instead of the way Excel shows them
+     */
+    public static void readFirstSheet(String file, int columns, boolean rawNumbers, RowHandler handler)
+            throws IOException {
+        char delimiter = TableWriter.getDelimiter(file);
+        if (delimiter != 0) {
+            readDelimited(file, delimiter, columns, handler);
+            return;
+        }
+
+        FileMagic magic;
+        try (InputStream in = FileMagic.prepareToCheckMagic(new BufferedInputStream(new FileInputStream(file)))) {
+            magic = FileMagic.valueOf(in);
+        }
+
+        if (magic == FileMagic.OOXML) {
+            readXlsx(file, columns, rawNumbers, handler);
+        }
+        else if (magic == FileMagic.OLE2) {
+            readXls(file, columns, rawNumbers, handler);
+        }
+        else {
+            throw new IOException("Not a workbook: " + file);
+        }
+    }
+
+    private static void readXlsx(String file, int columns, boolean rawNumbers, RowHandler handler) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(new File(file), PackageAccess.READ);
+        }
+        catch (OpenXML4JException | RuntimeException e) {
+            throw new IOException("Cannot open workbook: " + file, e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = SAXHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                        new XlsxRowCollector(columns, handler), rawNumbers ? new RawNumberFormatter() : new DataFormatter(),
+                        false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+        catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Cannot read workbook: " + file, e);
+        }
+        finally {
+            pkg.revert(); // closes without saving
+        }
+    }
+
+    private static void readXls(String file, int columns, boolean rawNumbers, RowHandler handler) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(new File(file), true)) {
+            XlsRowCollector collector = new XlsRowCollector(columns, rawNumbers, handler);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new MissingRecordAwareHSSFListener(collector.formatListener));
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+        }
+    }
+
+    /**
+     * Reads quoted fields as written by {@link TableWriter}: a field with the
+     * delimiter, quotes or line breaks is quoted, with its quotes doubled
+     */
+    private static void readDelimited(String file, char delimiter, int columns, RowHandler handler)
+            throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            CharBuffer in = new CharBuffer(reader);
+            DelimitedRowCollector collector = new DelimitedRowCollector(columns, handler);
+            boolean quoted = false;
+            int c = in.read();
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            quoted = false; // c is the char after the closing quote
+                            continue;
+                        }
+                    }
+                    collector.field.append((char) c);
+                }
+                else if (c == '"' && collector.field.length() == 0) {
+                    quoted = true;
+                }
+                else if (c == delimiter) {
+                    collector.endField();
+                }
+                else if (c == '\r' || c == '\n') {
+                    collector.endRow();
+                    if (c == '\r') {
+                        c = in.read();
+                        if (c != '\n') {
+                            continue;
+                        }
+                    }
+                }
+                else {
+                    collector.field.append((char) c);
+                }
+                c = in.read();
+            }
+            collector.endRow(); // last line may have no line break
+        }
+    }
+
+    /**
+     * @return whole numbers without a decimal point, others as
+     *         {@link Double#toString(double)}, which reads back to the same value
+     */
+    public static String formatRaw(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    // Skips the number formats, which take most of the time of reading numeric cells
+    private static class RawNumberFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            return formatRaw(value);
+        }
+    }
+
+    // Unsynchronized buffer, as reading one char at a time from a Reader locks each time
+    private static class CharBuffer {
+
+        private final Reader reader;
+        private final char[] chars = new char[8192];
+        private int position = 0;
+        private int length = 0;
+
+        CharBuffer(Reader reader) {
+            this.reader = reader;
+        }
+
+        int read() throws IOException {
+            if (position == length) {
+                length = reader.read(chars);
+                position = 0;
+                if (length <= 0) {
+                    length = 0;
+                    return -1;
+                }
+            }
+            return chars[position++];
+        }
+    }
+
+    private static class DelimitedRowCollector {
+
+        final StringBuilder field = new StringBuilder();
+
+        private final String[] cells;
+        private final RowHandler handler;
+        private boolean empty = true;
+        private int rowNum = 0;
+        private int column = 0;
+
+        DelimitedRowCollector(int columns, RowHandler handler) {
+            this.cells = new String[columns];
+            this.handler = handler;
+            Arrays.fill(cells, "");
+        }
+
+        void endField() {
+            if (column < cells.length && field.length() > 0) {
+                cells[column] = field.toString();
+                empty = false;
+            }
+            field.setLength(0);
+            column++;
+        }
+
+        void endRow() {
+            endField();
+            if (!empty) {
+                handler.row(rowNum, cells.clone());
+                Arrays.fill(cells, "");
+                empty = true;
+            }
+            rowNum++;
+            column = 0;
+        }
+    }
+
+    private static class XlsxRowCollector implements SheetContentsHandler {
+
+        private final String[] cells;
+        private final RowHandler handler;
+        private boolean empty;
+        private int nextColumn;
+
+        XlsxRowCollector(int columns, RowHandler handler) {
+            this.cells = new String[columns];
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, "");
+            empty = true;
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!empty) {
+                handler.row(rowNum, cells.clone());
+            }
+        }
+
+        @Override
+        public void cell(String reference, String formattedValue, XSSFComment comment) {
+            int column = reference != null ? getColumn(reference) : nextColumn;
+            nextColumn = column + 1;
+            if (column < cells.length && formattedValue != null) {
+                cells[column] = formattedValue;
+                empty = false;
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {}
+
+        // Column of a reference like "AB12", without the regex of CellReference
+        private static int getColumn(String reference) {
+            int column = 0;
+            for (int i = 0; i < reference.length(); i++) {
+                char c = reference.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                column = column * 26 + (c - 'A' + 1);
+            }
+            return column - 1;
+        }
+    }
+
+    private static class XlsRowCollector implements HSSFListener {
+
+        // Cached result type of a numeric formula; CellType.NUMERIC.getCode() is deprecated
+        private static final int NUMERIC_RESULT = 0;
+
+        final FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(this);
+
+        private final String[] cells;
+        private final RowHandler handler;
+        private final boolean rawNumbers;
+        private boolean empty = true;
+
+        private SSTRecord strings;
+
+        // Worksheets start from 0, -1 before the first one
+        private int sheetIndex = -1;
+
+        // Cell waiting for the string result of its formula
+        private int formulaColumn = -1;
+
+        XlsRowCollector(int columns, boolean rawNumbers, RowHandler handler) {
+            this.cells = new String[columns];
+            this.rawNumbers = rawNumbers;
+            this.handler = handler;
+            Arrays.fill(cells, "");
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record instanceof BOFRecord) {
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheetIndex++;
+                }
+                return;
+            }
+            if (record instanceof SSTRecord) {
+                strings = (SSTRecord) record;
+                return;
+            }
+            if (sheetIndex != 0) {
+                return;
+            }
+
+            if (record instanceof LastCellOfRowDummyRecord) {
+                if (!empty) {
+                    handler.row(((LastCellOfRowDummyRecord) record).getRow(), cells.clone());
+                    Arrays.fill(cells, "");
+                    empty = true;
+                }
+            }
+            else if (record instanceof StringRecord) {
+                if (formulaColumn >= 0) {
+                    setCell(formulaColumn, ((StringRecord) record).getString());
+                    formulaColumn = -1;
+                }
+            }
+            else if (record instanceof EOFRecord) {
+                sheetIndex++; // ignores the following sheets
+            }
+            else if (record instanceof CellValueRecordInterface) {
+                int column = ((CellValueRecordInterface) record).getColumn();
+                if (column < cells.length) {
+                    setCell(column, getValue(record, column));
+                }
+            }
+        }
+
+        private String getValue(Record record, int column) {
+            if (record instanceof LabelSSTRecord) {
+                return strings.getString(((LabelSSTRecord) record).getSSTIndex()).getString();
+            }
+            else if (record instanceof LabelRecord) {
+                return ((LabelRecord) record).getValue();
+            }
+            else if (record instanceof NumberRecord) {
+                NumberRecord number = (NumberRecord) record;
+                return rawNumbers ? formatRaw(number.getValue()) : formatListener.formatNumberDateCell(number);
+            }
+            else if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                return boolErr.isBoolean() ? Boolean.toString(boolErr.getBooleanValue()).toUpperCase() : "";
+            }
+            else if (record instanceof FormulaRecord) {
+                FormulaRecord formula = (FormulaRecord) record;
+                if (formula.hasCachedResultString()) {
+                    formulaColumn = column; // value comes in the next StringRecord
+                    return "";
+                }
+                else if (formula.getCachedResultType() == NUMERIC_RESULT) {
+                    return rawNumbers ? formatRaw(formula.getValue()) : formatListener.formatNumberDateCell(formula);
+                }
+            }
+            return "";
+        }
+
+        private void setCell(int column, String value) {
+            if (value != null && !value.isEmpty()) {
+                cells[column] = value;
+                empty = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.lexicon.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes rows to a table one at a time, in the format given by the file
+ * extension:
+ * <ul>
+ * <li>.csv and .tsv: text files; each sheet after the first goes to a separate
+ * <code>&lt;name&gt;-&lt;sheet&gt;</code> file next to it</li>
+ * <li>.xls: Excel 97 workbook, limited to 65,536 rows</li>
+ * <li>anything else: .xlsx workbook written through a window of rows</li>
+ * </ul>
+ * Columns are not auto-sized, which needs every row in memory.
+ */
+public abstract class TableWriter implements Closeable {
+
+    // Rows kept in memory by the .xlsx writer
+    private static final int ROW_WINDOW = 100;
+
+    public static TableWriter open(String file, String sheetName) throws IOException {
+        char delimiter = getDelimiter(file);
+        if (delimiter != 0) {
+            return new TextWriter(file, delimiter);
+        }
+        else if (file.toLowerCase().endsWith(".xls")) {
+            return new WorkbookWriter(new HSSFWorkbook(), file, sheetName);
+        }
+        else {
+            return new WorkbookWriter(new SXSSFWorkbook(ROW_WINDOW), file, sheetName);
+        }
+    }
+
+    /**
+     * @return delimiter of a .csv or .tsv file, 0 for workbooks
+     */
+    public static char getDelimiter(String file) {
+        String lowerCased = file.toLowerCase();
+        if (lowerCased.endsWith(".csv")) {
+            return ',';
+        }
+        else if (lowerCased.endsWith(".tsv")) {
+            return '\t';
+        }
+        return 0;
+    }
+
+    /**
+     * Writes the next row; numbers become numeric cells and <code>null</code>
+     * values are left empty
+     */
+    public abstract void writeRow(Object... values) throws IOException;
+
+    /**
+     * Continues on a new sheet; no rows can be added to the previous one
+     */
+    public abstract void startSheet(String name) throws IOException;
+
+    /**
+     * Merges cells of the last written row, only in workbooks
+     */
+    public void mergeCells(int firstColumn, int lastColumn) {}
+
+    /**
+     * Sets the width of a column in characters, only in workbooks
+     */
+    public void setColumnWidth(int column, int width) {}
+
+    private static class WorkbookWriter extends TableWriter {
+
+        private final Workbook workbook;
+        private final String file;
+        private Sheet sheet;
+        private int rowNum;
+
+        WorkbookWriter(Workbook workbook, String file, String sheetName) {
+            this.workbook = workbook;
+            this.file = file;
+            startSheet(sheetName);
+        }
+
+        @Override
+        public void writeRow(Object... values) {
+            Row row = sheet.createRow(rowNum++);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof Number) {
+                    row.createCell(i).setCellValue(((Number) values[i]).doubleValue());
+                }
+                else if (values[i] != null) {
+                    row.createCell(i).setCellValue(values[i].toString());
+                }
+            }
+        }
+
+        @Override
+        public void startSheet(String name) {
+            sheet = workbook.createSheet(name);
+            rowNum = 0;
+        }
+
+        @Override
+        public void mergeCells(int firstColumn, int lastColumn) {
+            sheet.addMergedRegion(new CellRangeAddress(rowNum - 1, rowNum - 1, firstColumn, lastColumn));
+        }
+
+        @Override
+        public void setColumnWidth(int column, int width) {
+            sheet.setColumnWidth(column, width * 256);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (OutputStream out = new FileOutputStream(file)) {
+                workbook.write(out);
+            }
+            finally {
+                if (workbook instanceof SXSSFWorkbook) {
+                    ((SXSSFWorkbook) workbook).dispose(); // deletes the temporary files
+                }
+                workbook.close();
+            }
+        }
+    }
+
+    private static class TextWriter extends TableWriter {
+
+        private final String file;
+        private final char delimiter;
+        private Writer out;
+
+        TextWriter(String file, char delimiter) throws IOException {
+            this.file = file;
+            this.delimiter = delimiter;
+            out = openWriter(file);
+        }
+
+        @Override
+        public void writeRow(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(delimiter);
+                }
+                if (values[i] != null) {
+                    out.write(quote(values[i].toString()));
+                }
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void startSheet(String name) throws IOException {
+            out.close();
+            int extension = file.lastIndexOf('.');
+            String sheetName = name.toLowerCase().replace(' ', '-');
+            out = openWriter(file.substring(0, extension) + "-" + sheetName + file.substring(extension));
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private static Writer openWriter(String file) throws IOException {
+            return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        }
+
+        // Quotes values that contain the delimiter, quotes or line breaks
+        private String quote(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                    return '"' + value.replace("\"", "\"\"") + '"';
+                }
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.lexicon.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable set of words, stored as packed UTF-8 bytes and an open addressing
+ * hash table of word indexes. Membership can be tested on part of a
+ * <code>CharSequence</code> or <code>char[]</code>, without creating a
+ * <code>String</code>. The set is laid out the same in memory and in its
+ * binary form, so it can be read without copying:
+ *
+ * <pre>
+ * int      magic "LXWS"
+ * int      word count
+ * int      table size, a power of two
+ * int      byte count
+ * int[]    offset of each word in the bytes, and the byte count
+ * int[]    table, index of a word plus one, or 0 for an empty slot
+ * byte[]   UTF-8 bytes of the words
+ * </pre>
+ */
+public final class WordSet {
+
+    static final int MAGIC = 0x4C585753;
+
+    private static final int HEADER_SIZE = 16;
+
+    private final int size;
+    private final int mask;
+    private final IntBuffer offsets;
+    private final IntBuffer table;
+    private final ByteBuffer bytes;
+
+    private WordSet(ByteBuffer buffer) {
+        size = buffer.getInt(4);
+        int tableSize = buffer.getInt(8);
+        int byteCount = buffer.getInt(12);
+        mask = tableSize - 1;
+
+        int position = buffer.position() + HEADER_SIZE;
+        offsets = slice(buffer, position, (size + 1) * 4).asIntBuffer();
+        position += (size + 1) * 4;
+        table = slice(buffer, position, tableSize * 4).asIntBuffer();
+        position += tableSize * 4;
+        bytes = slice(buffer, position, byteCount);
+    }
+
+    /**
+     * @return set of the distinct words
+     */
+    public static WordSet of(Collection<String> words) {
+        return read(ByteBuffer.wrap(toBytes(new LinkedHashSet<>(words))));
+    }
+
+    /**
+     * Uses the bytes of the buffer from its position, without copying them
+     *
+     * @return <code>null</code> if the buffer does not hold a word set
+     */
+    public static WordSet read(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(buffer.position()) != MAGIC) {
+            return null;
+        }
+        return new WordSet(buffer.slice());
+    }
+
+    /**
+     * @return binary form of a set of the words, see {@link WordSet}
+     */
+    public static byte[] toBytes(Set<String> words) {
+        int tableSize = Integer.highestOneBit(Math.max(words.size(), 1) * 2 - 1) * 2;
+        int[] offsets = new int[words.size() + 1];
+        int[] table = new int[tableSize];
+        ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+
+        int index = 0;
+        for (String word : words) {
+            byte[] wordBytes = word.getBytes(StandardCharsets.UTF_8);
+            utf8.write(wordBytes, 0, wordBytes.length);
+            offsets[index + 1] = offsets[index] + wordBytes.length;
+
+            int slot = hash(word, 0, word.length()) & (tableSize - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            table[slot] = ++index;
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(result)) {
+            out.writeInt(MAGIC);
+            out.writeInt(words.size());
+            out.writeInt(tableSize);
+            out.writeInt(utf8.size());
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (int slot : table) {
+                out.writeInt(slot);
+            }
+            utf8.writeTo(out);
+        }
+        catch (IOException e) {
+            // Not thrown by byte array streams
+            throw new IllegalStateException(e);
+        }
+        return result.toByteArray();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return word number <code>index</code>, in the order the words were added
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int position = offsets.get(index);
+        byte[] wordBytes = new byte[offsets.get(index + 1) - position];
+        ByteBuffer duplicate = bytes.duplicate();
+        duplicate.position(position);
+        duplicate.get(wordBytes);
+        return new String(wordBytes, StandardCharsets.UTF_8);
+    }
+
+    public boolean contains(CharSequence word) {
+        return contains(word, 0, word.length());
+    }
+
+    public boolean contains(char[] chars, int start, int end) {
+        return contains(CharBuffer.wrap(chars), start, end);
+    }
+
+    /**
+     * @return whether the characters from <code>start</code> until
+     *         <code>end</code> are a word of the set
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        int slot = hash(text, start, end) & mask;
+        int index;
+        while ((index = table.get(slot)) != 0) {
+            if (matches(index - 1, text, start, end)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private boolean matches(int index, CharSequence text, int start, int end) {
+        int position = offsets.get(index);
+        int wordEnd = offsets.get(index + 1);
+        // A character takes one to three bytes, or four for a surrogate pair
+        if (wordEnd - position < end - start || wordEnd - position > (end - start) * 3) {
+            return false;
+        }
+
+        for (int i = start; i < end; i++) {
+            int c = text.charAt(i);
+            if (c < 0x80) {
+                if (position == wordEnd || bytes.get(position++) != c) { return false; }
+                continue;
+            }
+            if (Character.isHighSurrogate((char) c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                c = Character.toCodePoint((char) c, text.charAt(++i));
+            }
+            else if (Character.isSurrogate((char) c)) {
+                // Unpaired surrogates are not encoded as themselves
+                return false;
+            }
+
+            int length = c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            if (wordEnd - position < length) { return false; }
+            int first = length == 2 ? 0xC0 | c >> 6 : length == 3 ? 0xE0 | c >> 12 : 0xF0 | c >> 18;
+            if ((bytes.get(position++) & 0xFF) != first) { return false; }
+            for (int shift = (length - 2) * 6; shift >= 0; shift -= 6) {
+                if ((bytes.get(position++) & 0xFF) != (0x80 | (c >> shift & 0x3F))) { return false; }
+            }
+        }
+        return position == wordEnd;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        // Spread the bits, since only the lowest ones pick the slot
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ h >>> 13;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+}
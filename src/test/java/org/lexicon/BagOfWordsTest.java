@@ -0,0 +1,70 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BagOfWordsTest {
+
+    private static final List<String> BOW_LINES = Arrays.asList(
+            ",f,TO Weight,f,TO Weight,f,TO Weight",
+            ",+,,-,,N",
+            "balay,1,0.2,0,0.125,3,0.5",
+            "\"lipay, kaayo\",4,0.5,0,0.125,0,0.0625",
+            "subo,0,0.1,5,0.75,1,0.25",
+            "Total count:,5,,5,,4",
+            "Sentences:,3,,4,,2");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String writeLines(String name, List<String> lines) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return file.getPath();
+    }
+
+    private static List<String> readLines(String file) throws IOException {
+        return Files.readAllLines(new File(file).toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testReadAndWriteCsv() throws IOException {
+        BagOfWords bow = new BagOfWords(writeLines("bow.csv", BOW_LINES));
+        assertEquals(3, bow.getVocabulary().size());
+        assertTrue(bow.getVocabulary().contains("lipay, kaayo"));
+
+        String file = new File(folder.getRoot(), "copy.csv").getPath();
+        assertTrue(bow.writeFile(file));
+        assertEquals(BOW_LINES.size(), readLines(file).size());
+        assertEquals(bow.getVocabulary(), new BagOfWords(file).getVocabulary());
+        assertEquals(readLines(file), readLines(writeCopy(new BagOfWords(file), "copy2.csv")));
+    }
+
+    @Test
+    public void testReadAndWriteWorkbooks() throws IOException {
+        BagOfWords bow = new BagOfWords(writeLines("bow.csv", BOW_LINES));
+        String expected = writeCopy(bow, "expected.csv");
+
+        for (String name : new String[] { "bow.xlsx", "bow.xls" }) {
+            BagOfWords copy = new BagOfWords(writeCopy(bow, name));
+            assertEquals(readLines(expected), readLines(writeCopy(copy, name + ".csv")));
+        }
+    }
+
+    private String writeCopy(BagOfWords bow, String name) {
+        String file = new File(folder.getRoot(), name).getPath();
+        assertTrue(bow.writeFile(file));
+        return file;
+    }
+}
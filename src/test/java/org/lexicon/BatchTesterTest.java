@@ -0,0 +1,62 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Test;
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.data.Document;
+
+public class BatchTesterTest {
+
+    private static final Function<String, Sentiment> LENGTH_CLASSIFIER =
+            sentence -> Sentiment.values()[sentence.length() % 3];
+
+    private static Document createDocument(int size) {
+        List<AnnotatedText> sentences = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            sentences.add(new AnnotatedText("sentence " + i, Sentiment.values()[i % 3]));
+        }
+        return new Document(sentences, false);
+    }
+
+    @Test
+    public void testPredictionsKeepInputOrder() {
+        Document document = createDocument(5000);
+        TestResult result = new BatchTester(8).test(document, LENGTH_CLASSIFIER);
+
+        int i = 0;
+        for (Map.Entry<AnnotatedText, Sentiment> entry : result.getResultMap().entrySet()) {
+            AnnotatedText sentence = document.getData().get(i++);
+            assertEquals(sentence, entry.getKey());
+            assertEquals(LENGTH_CLASSIFIER.apply(sentence.getText()), entry.getValue());
+        }
+        assertEquals(document.getData().size(), i);
+    }
+
+    @Test
+    public void testSameResultForAnyThreadCount() {
+        Document document = createDocument(1234);
+        TestResult single = new BatchTester(1).test(document, LENGTH_CLASSIFIER);
+        TestResult parallel = new BatchTester(4).test(document, LENGTH_CLASSIFIER);
+
+        assertEquals(new ArrayList<>(single.getResultMap().entrySet()), new ArrayList<>(parallel.getResultMap().entrySet()));
+        assertEquals(single.getAccuracy(), parallel.getAccuracy(), 0);
+    }
+
+    @Test
+    public void testListenerReceivesPredictionsInOrder() {
+        Document document = createDocument(3000);
+        List<AnnotatedText> received = new ArrayList<>();
+        new BatchTester(4).test(document, LENGTH_CLASSIFIER, (sentence, prediction) -> {
+            assertEquals(LENGTH_CLASSIFIER.apply(sentence.getText()), prediction);
+            received.add(sentence);
+        });
+
+        assertEquals(document.getData(), received);
+    }
+}
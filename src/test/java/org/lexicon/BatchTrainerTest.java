@@ -0,0 +1,65 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+import org.lexicon.data.Vocabulary;
+
+public class BatchTrainerTest {
+
+    private static final int WORD_COUNT = 500;
+    private static final int SENTENCE_COUNT = 10000;
+
+    private static TrainingStats count(ExtractionScheme scheme, int threads) {
+        Random random = new Random(42);
+        Vocabulary words = new Vocabulary();
+        for (int id = 0; id < WORD_COUNT; id++) {
+            words.add("w" + id);
+        }
+
+        int[][] tokens = new int[SENTENCE_COUNT][];
+        Sentiment[] categories = new Sentiment[SENTENCE_COUNT];
+        for (int i = 0; i < SENTENCE_COUNT; i++) {
+            tokens[i] = new int[1 + random.nextInt(12)];
+            for (int j = 0; j < tokens[i].length; j++) {
+                // Skewed, so some words are in most shards and some in few
+                tokens[i][j] = (int) (WORD_COUNT * Math.pow(random.nextDouble(), 3));
+            }
+            categories[i] = Sentiment.values()[random.nextInt(Sentiment.values().length)];
+        }
+
+        TrainingStats stats = new TrainingStats(scheme, words);
+        new BatchTrainer(threads).add(stats, tokens, categories);
+        return stats;
+    }
+
+    private static byte[] toBytes(TrainingStats stats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            stats.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testSameCountsForAnyNumberOfThreads() throws IOException {
+        for (ExtractionScheme scheme : ExtractionScheme.values()) {
+            byte[] expected = toBytes(count(scheme, 1));
+            for (int threads = 2; threads <= 4; threads++) {
+                assertArrayEquals(scheme + " with " + threads + " threads", expected, toBytes(count(scheme, threads)));
+            }
+        }
+    }
+
+    @Test
+    public void testSentenceCounts() {
+        TrainingStats stats = count(ExtractionScheme.TF, 4);
+        assertEquals(SENTENCE_COUNT, stats.getSentenceCount());
+    }
+}
@@ -4,10 +4,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.lexicon.data.AnnotatedText;
 import org.lexicon.data.Document;
 import org.lexicon.process.DocumentHelper;
@@ -17,6 +27,63 @@ public class DocumentHelperTest {
     private static final String INVALID_FILE_NAME = "./documents/asd";
     private static final String VALID_FILE_NAME = "./files/sentences_document.xlsx";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 12 positive, 10 negative and 11 neutral sentences, with a gap after every 7 rows
+    private String createDocument(Workbook wb, String name) throws IOException {
+        Sheet sheet = wb.createSheet("Sentences");
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Sentence");
+        header.createCell(1).setCellValue("Classification");
+
+        int[] counts = { 12, 10, 11 };
+        int rowNum = 1;
+        for (int i = 0; i < 12; i++) {
+            for (Sentiment sentiment : Sentiment.values()) {
+                if (i < counts[sentiment.ordinal()]) {
+                    Row row = sheet.createRow(rowNum++);
+                    row.createCell(0).setCellValue(" " + sentiment.name().toLowerCase() + " " + i + " ");
+                    row.createCell(1).setCellValue(sentiment.name().toLowerCase());
+                    if (rowNum % 7 == 0) {
+                        rowNum++;
+                    }
+                }
+            }
+        }
+
+        String file = folder.newFile(name).getPath();
+        try (OutputStream out = new FileOutputStream(file)) {
+            wb.write(out);
+        }
+        wb.close();
+        return file;
+    }
+
+    @Test
+    public void testLoadWorkbooks() throws IOException {
+        for (String file : new String[] { createDocument(new XSSFWorkbook(), "document.xlsx"),
+                createDocument(new HSSFWorkbook(), "document.xls") }) {
+            Map<Sentiment, List<AnnotatedText>> document = DocumentHelper.loadDocument(file);
+            for (Sentiment sentiment : Sentiment.values()) {
+                List<AnnotatedText> sentences = document.get(sentiment);
+                assertEquals(10, sentences.size());
+                assertEquals(new AnnotatedText(sentiment.name().toLowerCase() + " 9", sentiment), sentences.get(9));
+            }
+
+            // round(10 * 0.7) - 1 sentences of each for training, then from the 7th to the one before the last
+            List<AnnotatedText> training = DocumentHelper.loadTrainingDocument(file).getData();
+            assertEquals(18, training.size());
+            assertEquals(new AnnotatedText("positive 0", Sentiment.POSITIVE), training.get(0));
+            assertEquals(new AnnotatedText("negative 5", Sentiment.NEGATIVE), training.get(11));
+
+            List<AnnotatedText> testing = DocumentHelper.loadTestingDocument(file).getData();
+            assertEquals(6, testing.size());
+            assertEquals(new AnnotatedText("positive 7", Sentiment.POSITIVE), testing.get(0));
+            assertEquals(new AnnotatedText("neutral 8", Sentiment.NEUTRAL), testing.get(5));
+        }
+    }
+
     @Test
     public void testLoadDocument() {
         Map<Sentiment, List<AnnotatedText>> nullDocument = DocumentHelper.loadDocument(INVALID_FILE_NAME);
@@ -0,0 +1,64 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lexicon.HappinessIndex.ScoreTable;
+import org.lexicon.util.TableWriter;
+
+public class HappinessIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HappinessIndex createIndex() throws Exception {
+        String file = new File(folder.getRoot(), "lexicon.xlsx").getPath();
+        try (TableWriter out = TableWriter.open(file, "lexicon")) {
+            out.writeRow(new Object[] { "Word ID", "Word", "Cebuano", "Score1", "Score2", "Score3" });
+            out.writeRow(new Object[] { "1", "happy", "lipay", "8", "7", "6" });
+            out.writeRow(new Object[] { "2", "sad", "subo", "2", "3", "1" });
+            out.writeRow(new Object[] { "3", "house", "balay", "5", "5", "5" });
+            // Averaged with the row above, so "balay" stays neutral
+            out.writeRow(new Object[] { "4", "home", "balay", "5.4", "5", "5" });
+            // Scores that are not numbers are counted as the word's scores so far
+            out.writeRow(new Object[] { "5", "pretty", "nindot", "7", "", "" });
+        }
+
+        HappinessIndex index = new HappinessIndex();
+        index.load(file);
+        return index;
+    }
+
+    @Test
+    public void testPredict() throws Exception {
+        ScoreTable table = createIndex().compile(Arrays.asList(1, 2, 3));
+        assertEquals(4, table.size());
+
+        assertEquals(Sentiment.POSITIVE, table.predict(Arrays.asList("lipay", "balay")));
+        assertEquals(Sentiment.NEGATIVE, table.predict(Arrays.asList("subo", "unknown")));
+        // 15.2 for the neutral word, 21 for the positive one
+        assertEquals(Sentiment.NEUTRAL, table.predict(Arrays.asList("balay", "balay", "lipay")));
+        // No lexicon words, so every sentiment scores 0
+        assertEquals(Sentiment.POSITIVE, table.predict(Arrays.asList("unknown")));
+    }
+
+    @Test
+    public void testLevels() throws Exception {
+        HappinessIndex index = createIndex();
+        // Only the third score counts: 6 for "lipay", 1 for each "subo"
+        ScoreTable table = index.compile(Arrays.asList(3));
+        assertEquals(Sentiment.POSITIVE, table.predict(Arrays.asList("lipay", "subo", "subo")));
+        assertEquals(Sentiment.NEGATIVE, table.predict(Arrays.asList("lipay", "subo", "subo", "subo", "subo",
+                "subo", "subo", "subo")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLevel() throws Exception {
+        createIndex().compile(Arrays.asList(0, 1));
+    }
+}
@@ -0,0 +1,55 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lexicon.util.SheetReader;
+
+public class LexiconPopulatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> readRows(String file) throws Exception {
+        List<String> rows = new ArrayList<>();
+        SheetReader.readFirstSheet(file, 8, (rowNum, cells) -> rows.add(String.join("|", cells)));
+        return rows;
+    }
+
+    @Test
+    public void testPopulate() throws Exception {
+        File base = folder.newFile("base.csv");
+        Files.write(base.toPath(), Arrays.asList(
+                "1,abolish,,5.1,2,3,x,N",
+                "1,abolish,wagtang,5.1,2,3,x,N",
+                ",,,,,,,",
+                "2,abscess,\"nana, hubag\",4,2,1,y,A",
+                "3,zzqqx,,1,1,1,,",
+                ",trailer,,,,,,"), StandardCharsets.UTF_8);
+        String result = new File(folder.getRoot(), "result.csv").getPath();
+
+        assertTrue(LexiconPopulator.populate(base.getPath(), result));
+        assertArrayEquals(new String[] {
+                "1|abolish|pagpanas|5.1|2|3||V",
+                "1|abolish|wagtang|5.1|2|3||",
+                "1|abolish|pagpapas|5.1|2|3||V",
+                "1|abolish|papha|5.1|2|3||V",
+                "2|abscess|ahak|4|2|1||N",
+                "2|abscess|hubag|4|2|1||",
+                "2|abscess|nana|4|2|1||",
+                "2|abscess|tabaghak|4|2|1||N",
+                "3|zzqqx||1|1|1||",
+                "|trailer||||||"
+        }, readRows(result).toArray());
+    }
+}
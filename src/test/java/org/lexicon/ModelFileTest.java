@@ -0,0 +1,163 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lexicon.data.Vocabulary;
+
+public class ModelFileTest {
+
+    private static final String[] WORDS = { "lipay", "subo", "balay", "nindot", "pangit", "señor", "a" };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static NaiveBayesClassifier createClassifier() {
+        Map<Sentiment, Double> priorMap = new HashMap<>();
+        priorMap.put(Sentiment.POSITIVE, 0.5);
+        priorMap.put(Sentiment.NEGATIVE, 0.3);
+        priorMap.put(Sentiment.NEUTRAL, 0.2);
+
+        Vocabulary vocabulary = new Vocabulary();
+        double[][] likelihoods = new double[Sentiment.values().length][WORDS.length];
+        for (int id = 0; id < WORDS.length; id++) {
+            vocabulary.add(WORDS[id]);
+            for (int c = 0; c < likelihoods.length; c++) {
+                likelihoods[c][id] = -(id + 1) * (c + 1) / 10.0;
+            }
+        }
+        return new NaiveBayesClassifier(priorMap, vocabulary, likelihoods);
+    }
+
+    private static String getLegacyModelFile() throws Exception {
+        return new File(ModelFileTest.class.getResource("/model/legacy.model").toURI()).getPath();
+    }
+
+    @Test
+    public void testWriteAndOpen() throws Exception {
+        NaiveBayesClassifier classifier = createClassifier();
+        String file = folder.newFile("classifier.model").getPath();
+        assertTrue(classifier.writeModel(file));
+        assertTrue(ModelFile.isModelFile(file));
+
+        MappedModel model = ModelFile.open(file);
+        assertEquals(WORDS.length, model.size());
+        assertEquals(0.3, model.getPrior(Sentiment.NEGATIVE.ordinal()), 0);
+        for (String word : WORDS) {
+            int id = model.indexOf(word);
+            assertEquals(word, model.getWord(id));
+            for (Sentiment sentiment : Sentiment.values()) {
+                assertEquals(classifier.getLikelihood(word, sentiment), model.getLikelihood(sentiment.ordinal(), id), 0);
+            }
+        }
+        assertEquals(-1, model.indexOf("hagdanan"));
+        assertEquals(-1, model.indexOf(""));
+    }
+
+    @Test
+    public void testLoadModel() throws Exception {
+        NaiveBayesClassifier classifier = createClassifier();
+        String file = folder.newFile("classifier.model").getPath();
+        classifier.writeModel(file);
+
+        NaiveBayesClassifier loaded = NaiveBayesClassifier.loadModel(file);
+        assertEquals(classifier.getPriorMap(), loaded.getPriorMap());
+        assertEquals(WORDS.length, loaded.getVocabulary().size());
+        for (String word : WORDS) {
+            for (Sentiment sentiment : Sentiment.values()) {
+                assertEquals(classifier.getLikelihood(word, sentiment), loaded.getLikelihood(word, sentiment), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testWriteAndOpenSparseModel() throws Exception {
+        TrainingStats stats = new TrainingStats(ExtractionScheme.TO);
+        stats.add(Arrays.asList("lipay", "nindot", "lipay"), Sentiment.POSITIVE);
+        stats.add(Arrays.asList("subo", "pangit"), Sentiment.NEGATIVE);
+        stats.add(Arrays.asList("balay", "señor", "a"), Sentiment.NEUTRAL);
+        NaiveBayesClassifier classifier = new NaiveBayesClassifier(stats);
+        String file = folder.newFile("sparse.model").getPath();
+        assertTrue(classifier.writeModel(file));
+
+        MappedModel model = ModelFile.open(file);
+        NaiveBayesClassifier loaded = NaiveBayesClassifier.loadModel(file);
+        for (String word : WORDS) {
+            for (Sentiment sentiment : Sentiment.values()) {
+                double likelihood = classifier.getLikelihood(word, sentiment);
+                assertEquals(likelihood, model.getLikelihood(sentiment.ordinal(), model.indexOf(word)), 0);
+                assertEquals(likelihood, loaded.getLikelihood(word, sentiment), 0);
+            }
+        }
+
+        loaded.setSmoothing(0.5);
+        assertEquals(0.5, loaded.getSmoothing(), 0);
+        assertEquals(Math.log(2.5 / (3 + 0.5 * WORDS.length)), loaded.getLikelihood("lipay", Sentiment.POSITIVE), 1e-12);
+    }
+
+    @Test
+    public void testOpenDamagedModel() throws Exception {
+        NaiveBayesClassifier classifier = createClassifier();
+        String file = folder.newFile("damaged.model").getPath();
+        classifier.writeModel(file);
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            // Word count
+            out.seek(12);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        assertDamaged(file);
+
+        classifier.writeModel(file);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(out.length() - 8);
+        }
+        assertDamaged(file);
+        assertNull(NaiveBayesClassifier.loadModel(file));
+    }
+
+    private static void assertDamaged(String file) {
+        try {
+            ModelFile.open(file);
+            fail("Opened damaged model file");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Damaged model file: "));
+        }
+    }
+
+    @Test
+    public void testLoadSerializedModel() throws Exception {
+        NaiveBayesClassifier classifier = NaiveBayesClassifier.loadModel(getLegacyModelFile());
+        assertEquals(0.5, classifier.getPriorMap().get(Sentiment.POSITIVE), 0);
+        assertEquals(5, classifier.getVocabulary().size());
+        assertEquals(-1.0, classifier.getLikelihood("subo", Sentiment.NEGATIVE), 0);
+        assertEquals(-2.5, classifier.getLikelihood("pangit", Sentiment.NEUTRAL), 0);
+    }
+
+    @Test
+    public void testConvert() throws Exception {
+        String legacyFile = getLegacyModelFile();
+        String file = folder.newFile("converted.model").getPath();
+        assertFalse(ModelFile.isModelFile(legacyFile));
+        assertTrue(ModelFile.convert(legacyFile, file));
+        assertTrue(ModelFile.isModelFile(file));
+
+        NaiveBayesClassifier classifier = NaiveBayesClassifier.loadModel(file);
+        assertEquals(-3.5, classifier.getLikelihood("nindot", Sentiment.NEGATIVE), 0);
+        assertEquals(-1.0, classifier.getLikelihood("balay", Sentiment.NEUTRAL), 0);
+    }
+}
@@ -0,0 +1,134 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScoringServerTest {
+
+    private static final Function<String, Sentiment> CLASSIFIER = sentence -> sentence.contains("lipay")
+            ? Sentiment.POSITIVE : sentence.contains("subo") ? Sentiment.NEGATIVE : Sentiment.NEUTRAL;
+
+    private ScoringServer server;
+    private String baseUrl;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new ScoringServer(CLASSIFIER, 2, 3);
+        InetSocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        baseUrl = "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testClassifyBatch() throws IOException {
+        Response response = request("POST", "/classify", "nalipay ko\nsubo kaayo\nbalay\n");
+        assertEquals(200, response.status);
+        assertEquals("POSITIVE\nNEGATIVE\nNEUTRAL\n", response.body);
+    }
+
+    @Test
+    public void testConcurrentClients() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String body = i % 2 == 0 ? "lipay\nsubo" : "subo";
+                responses.add(clients.submit(() -> request("POST", "/classify", body)));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                String expected = i % 2 == 0 ? "POSITIVE\nNEGATIVE\n" : "NEGATIVE\n";
+                assertEquals(expected, responses.get(i).get().body);
+            }
+        }
+        finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsLargeBatchesAndOtherMethods() throws IOException {
+        assertEquals(413, request("POST", "/classify", "a\nb\nc\nd\n").status);
+        assertEquals(405, request("GET", "/classify", null).status);
+        assertEquals("OK\n", request("GET", "/health", null).body);
+    }
+
+    @Test
+    public void testRejectsLargeBodies() throws IOException {
+        server.stop();
+        server = new ScoringServer(CLASSIFIER, 2, 3, 1024);
+        InetSocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        baseUrl = "http://" + address.getHostString() + ":" + address.getPort();
+
+        // One line without a newline is not read into memory past the limit
+        StringBuilder line = new StringBuilder();
+        while (line.length() <= 1024) {
+            line.append("lipay ");
+        }
+        Response response = request("POST", "/classify", line.toString());
+        assertEquals(413, response.status);
+        assertEquals("At most 1024 bytes per request\n", response.body);
+        assertEquals(200, request("POST", "/classify", "lipay\nsubo").status);
+    }
+
+    @Test
+    public void testRejectsWhileClientIsSending() throws IOException {
+        // Far more than the socket buffers, so the client is still writing when the batch is rejected
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 512 * 1024) {
+            body.append("lipay kaayo\n");
+        }
+        assertEquals(413, request("POST", "/classify", body.toString()).status);
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Response response = new Response();
+        response.status = connection.getResponseCode();
+        InputStream in = response.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        in.close();
+        response.body = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        return response;
+    }
+
+    private static class Response {
+        int status;
+        String body;
+    }
+}
@@ -0,0 +1,105 @@
+package org.lexicon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.lexicon.data.Vocabulary;
+
+public class TrainingStatsTest {
+
+    private static final List<List<String>> SENTENCES = Arrays.asList(
+            Arrays.asList("lipay", "kaayo", "lipay"),
+            Arrays.asList("subo", "kaayo"),
+            Arrays.asList("balay", "namo"),
+            Arrays.asList("nindot", "lipay"),
+            Arrays.asList("pangit", "subo", "subo", "kaayo"),
+            Arrays.asList("adto", "balay"));
+
+    private static final Sentiment[] CATEGORIES = { Sentiment.POSITIVE, Sentiment.NEGATIVE, Sentiment.NEUTRAL,
+            Sentiment.POSITIVE, Sentiment.NEGATIVE, Sentiment.NEUTRAL };
+
+    private static TrainingStats createStats(ExtractionScheme scheme, int from, int to) {
+        return addSentences(new TrainingStats(scheme), from, to);
+    }
+
+    private static TrainingStats addSentences(TrainingStats stats, int from, int to) {
+        for (int i = from; i < to; i++) {
+            stats.add(SENTENCES.get(i), CATEGORIES[i]);
+        }
+        return stats;
+    }
+
+    private static TrainingStats copy(TrainingStats stats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            stats.write(out);
+        }
+        return TrainingStats.read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testTermOccurrenceLikelihoods() {
+        TrainingStats stats = createStats(ExtractionScheme.TO, 0, SENTENCES.size());
+        Vocabulary vocabulary = new Vocabulary(Arrays.asList("lipay", "subo", "hagdan"));
+        double[][] likelihoods = stats.createLikelihoods(vocabulary, 1).toArray();
+
+        // Positive has "lipay" 3 times and no "subo", out of 3 counted words
+        assertEquals(Math.log(4.0 / 6), likelihoods[Sentiment.POSITIVE.ordinal()][0], 1e-12);
+        assertEquals(Math.log(1.0 / 6), likelihoods[Sentiment.POSITIVE.ordinal()][1], 1e-12);
+        assertEquals(Math.log(1.0 / 6), likelihoods[Sentiment.POSITIVE.ordinal()][2], 1e-12);
+        assertEquals(2, stats.getSentenceCount(Sentiment.NEGATIVE));
+        assertEquals(6, stats.getSentenceCount());
+    }
+
+    @Test
+    public void testUpdatesMatchTrainingFromScratch() throws IOException {
+        for (ExtractionScheme scheme : ExtractionScheme.values()) {
+            TrainingStats full = createStats(scheme, 0, SENTENCES.size());
+            TrainingStats updated = addSentences(copy(createStats(scheme, 0, 3)), 3, SENTENCES.size());
+
+            Vocabulary vocabulary = new Vocabulary();
+            for (List<String> sentence : SENTENCES) {
+                for (String word : sentence) {
+                    vocabulary.add(word);
+                }
+            }
+            double[][] expected = full.createLikelihoods(vocabulary, 1).toArray();
+            double[][] actual = updated.createLikelihoods(vocabulary, 1).toArray();
+            for (int c = 0; c < expected.length; c++) {
+                assertArrayEquals(scheme.toString(), expected[c], actual[c], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testSmoothing() {
+        TrainingStats stats = createStats(ExtractionScheme.TO, 0, SENTENCES.size());
+        Vocabulary vocabulary = new Vocabulary(Arrays.asList("lipay", "subo", "hagdan"));
+        Likelihoods likelihoods = stats.createLikelihoods(vocabulary, 1).withAlpha(0.5);
+
+        int positive = Sentiment.POSITIVE.ordinal();
+        assertEquals(Math.log(3.5 / 4.5), likelihoods.get(positive, 0), 1e-12);
+        assertEquals(Math.log(0.5 / 4.5), likelihoods.get(positive, 1), 1e-12);
+
+        // Only "lipay" has a positive value, so the other words share the default
+        assertEquals(likelihoods.get(positive, 1), likelihoods.get(positive, 2), 0);
+        double[] scores = new double[likelihoods.getClassCount()];
+        likelihoods.addTo(scores, 0);
+        assertEquals(likelihoods.get(positive, 0), scores[positive], 0);
+    }
+
+    @Test
+    public void testReadWithoutStats() {
+        assertNull(TrainingStats.read(ByteBuffer.allocate(0)));
+        assertNull(TrainingStats.read(ByteBuffer.allocate(16)));
+    }
+}
@@ -0,0 +1,44 @@
+package org.lexicon.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class TranslationIndexTest {
+
+    private static final String JSON = "{"
+            + "\"sad\": [{\"translation\": \"subo\", \"pos\": \"ADJ\"}, {\"translation\": \"masulub-on\", \"pos\": \"\"}],"
+            + "\"aardvark\": [],"
+            + "\"happy\": [{\"translation\": \"malipayon\", \"pos\": \"ADJ\"}]}";
+
+    @Test
+    public void testCompileAndRead() throws IOException {
+        JsonObject json = new JsonParser().parse(JSON).getAsJsonObject();
+        byte[] bytes = TranslationIndex.compile(json);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        TranslationIndex index = TranslationIndex.read(buffer);
+
+        assertEquals(3, index.size());
+        assertEquals("aardvark", index.getWord(0));
+        assertEquals("sad", index.getWord(2));
+
+        List<Translation> sad = index.get("sad");
+        assertEquals(2, sad.size());
+        assertEquals("masulub-on", sad.get(1).getWord());
+        assertEquals("ADJ", sad.get(0).getPOS());
+        assertEquals("malipayon", index.get("happy").get(0).getWord());
+        assertTrue(index.get("aardvark").isEmpty());
+        assertNull(index.get("angry"));
+        assertNull(TranslationIndex.read(ByteBuffer.allocate(8)));
+    }
+}
@@ -0,0 +1,54 @@
+package org.lexicon.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SortedSet;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+public class TranslationStoreTest {
+
+    private static final String JSON = "{"
+            + "\"cheerful\": [{\"translation\": \"malipayon\", \"pos\": \"ADJ\"}, {\"translation\": \"Lipay\", \"pos\": \"\"}],"
+            + "\"she\": [{\"translation\": \"siya\", \"pos\": \"N\"}]}";
+
+    private static TranslationStore createStore() throws IOException {
+        byte[] bytes = TranslationIndex.compile(new JsonParser().parse(JSON).getAsJsonObject());
+        return new TranslationStore(TranslationIndex.read(ByteBuffer.wrap(bytes)), 16);
+    }
+
+    @Test
+    public void testGetCleansAndExpands() throws IOException {
+        TranslationStore store = createStore();
+
+        SortedSet<Translation> cheerful = store.get("cheerful");
+        assertEquals(2, cheerful.size());
+        assertEquals("lipay", cheerful.first().getWord());
+
+        // "siya" is also written "sya"
+        SortedSet<Translation> she = store.get("she");
+        assertEquals(2, she.size());
+        assertEquals("sya", she.last().getWord());
+        assertEquals("N", she.last().getPOS());
+        assertNull(store.get("gloomy"));
+    }
+
+    @Test
+    public void testCachedTranslationsAreCopied() throws IOException {
+        TranslationStore store = createStore();
+        store.get("cheerful").clear();
+        assertEquals(2, store.get("cheerful").size());
+        assertNull(store.get("gloomy"));
+        assertNull(store.get("gloomy"));
+
+        assertEquals(2, store.getCache().getMissCount());
+        assertEquals(2, store.getCache().getHitCount());
+        assertTrue(store.getCache().size() <= 16);
+    }
+}
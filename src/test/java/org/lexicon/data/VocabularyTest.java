@@ -0,0 +1,43 @@
+package org.lexicon.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class VocabularyTest {
+
+    @Test
+    public void testAdd() {
+        Vocabulary vocabulary = new Vocabulary();
+        assertEquals(0, vocabulary.add("balay"));
+        assertEquals(1, vocabulary.add("lakaw"));
+        assertEquals(0, vocabulary.add("bal" + "ay"));
+        assertEquals(2, vocabulary.size());
+    }
+
+    @Test
+    public void testIndexOf() {
+        Vocabulary vocabulary = new Vocabulary(Arrays.asList("balay", "lakaw", "sakay"));
+        assertEquals(2, vocabulary.indexOf("sakay"));
+        assertEquals(-1, vocabulary.indexOf("hagdanan"));
+        assertTrue(vocabulary.contains("lakaw"));
+        assertFalse(vocabulary.contains("hagdanan"));
+        assertEquals("lakaw", vocabulary.getWord(1));
+    }
+
+    @Test
+    public void testGrow() {
+        Vocabulary vocabulary = new Vocabulary();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, vocabulary.add("word" + i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, vocabulary.indexOf("word" + i));
+        }
+        assertEquals(10000, vocabulary.size());
+    }
+}
@@ -2,11 +2,16 @@ package org.lexicon.process;
 
 import static org.junit.Assert.*;
 
+import java.text.Normalizer;
+import java.util.Random;
+
 import org.junit.Test;
 import org.lexicon.process.CebuanoNormalizer;
 
 public class CebuanoNormalizerTest {
 
+    private static final String ALPHABET = "aceFgiJkOqsuVzE ";
+
     @Test
     public void testNormalize() {
         final String input = " Tĥïŝ ĩš â fůňķŷ Šťŕĭńġ,";
@@ -16,4 +21,51 @@ public class CebuanoNormalizerTest {
         assertEquals(expected, output);
     }
 
+    @Test
+    public void testNormalizeMatchesChainedReplacement() {
+        String[] words = { "", " ", "guerra", "quiere", "cebu", "cice", "guigui", "gue", "quce", "cce",
+                "Zamboanga", "jefe", "VIVO", "kumusta", "Señor", "\u0001ce\u0001", "Ñiño" };
+        for (String word : words) {
+            assertEquals(word, chainedNormalize(word), CebuanoNormalizer.normalize(word));
+        }
+
+        // Every word up to four characters long over the letters used by the rules
+        assertAllWords("", 4);
+
+        Random random = new Random(42);
+        for (int n = 0; n < 10000; n++) {
+            StringBuilder word = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            assertEquals(word.toString(), chainedNormalize(word.toString()), CebuanoNormalizer.normalize(word.toString()));
+        }
+    }
+
+    private static void assertAllWords(String prefix, int length) {
+        assertEquals(prefix, chainedNormalize(prefix), CebuanoNormalizer.normalize(prefix));
+        if (length > 0) {
+            for (int i = 0; i < ALPHABET.length(); i++) {
+                assertAllWords(prefix + ALPHABET.charAt(i), length - 1);
+            }
+        }
+    }
+
+    // CebuanoNormalizer.normalize as it was written with chained regular expressions
+    private static String chainedNormalize(String word) {
+        return Normalizer.normalize(word, Normalizer.Form.NFD).replaceAll("[^\\p{ASCII}]", "")
+                .trim().toLowerCase()
+                .replaceAll("z", "s")
+                .replaceAll("ce", "si")
+                .replaceAll("ci", "si")
+                .replaceAll("gui", "gi")
+                .replaceAll("qui", "ki")
+                .replaceAll("c", "k")
+                .replaceAll("j", "h")
+                .replaceAll("f", "p")
+                .replaceAll("v", "b")
+                .replaceAll("o", "u")
+                .replaceAll("e", "i");
+    }
 }
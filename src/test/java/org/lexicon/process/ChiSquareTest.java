@@ -0,0 +1,51 @@
+package org.lexicon.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.lexicon.Sentiment;
+import org.lexicon.data.FeatureStats;
+
+public class ChiSquareTest {
+
+    private static double expectedScore(double n, double n11, double n10, double n01, double n00) {
+        return n * Math.pow(n11 * n00 - n10 * n01, 2) / ((n11 + n01) * (n11 + n10) * (n10 + n00) * (n01 + n00));
+    }
+
+    @Test
+    public void testScore() {
+        FeatureStats stats = new FeatureStats(3);
+        stats.add(new int[] { 0, 1 }, Sentiment.POSITIVE);
+        stats.add(new int[] { 0 }, Sentiment.POSITIVE);
+        stats.add(new int[] { 1, 2 }, Sentiment.NEGATIVE);
+        stats.add(new int[] { 2 }, Sentiment.NEUTRAL);
+
+        assertEquals(4, stats.n);
+        assertEquals(2, stats.getJointCount(Sentiment.POSITIVE.ordinal(), 0));
+        assertEquals(2, stats.getWordCount(1));
+
+        double[] scores = ChiSquare.score(stats);
+        // "0" is only positive: n11 = 2, n10 = 0, n01 = 0, n00 = 2
+        assertEquals(expectedScore(4, 2, 0, 0, 2), scores[0], 1e-12);
+        // "1" is in half of the positive sentences, which scores 0, so its
+        // score comes from the only negative one
+        assertEquals(expectedScore(4, 1, 1, 0, 2), scores[1], 1e-12);
+        assertEquals(scores[1], scores[2], 0);
+    }
+
+    @Test
+    public void testScoreDoesNotOverflow() {
+        // Products of the counts are far beyond the range of an int
+        FeatureStats stats = new FeatureStats(2);
+        int[] word = { 0 };
+        int[] other = { 1 };
+        for (int i = 0; i < 200000; i++) {
+            stats.add(i % 4 == 0 ? word : other, i % 2 == 0 ? Sentiment.POSITIVE : Sentiment.NEGATIVE);
+        }
+
+        double[] scores = ChiSquare.score(stats);
+        assertEquals(expectedScore(200000, 50000, 0, 50000, 100000), scores[0], 1e-6);
+        assertTrue(scores[0] > 0);
+    }
+}
@@ -0,0 +1,131 @@
+package org.lexicon.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lexicon.Sentiment;
+import org.lexicon.data.AnnotatedText;
+
+public class CorpusCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void writeDocument(File file, String... sentences) throws IOException {
+        try (Workbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Sentence");
+            header.createCell(1).setCellValue("Classification");
+            for (int i = 0; i < sentences.length; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(sentences[i]);
+                row.createCell(1).setCellValue(Sentiment.values()[i % 3].toString());
+            }
+            try (OutputStream out = new FileOutputStream(file)) {
+                wb.write(out);
+            }
+        }
+    }
+
+    private static List<AnnotatedText> read(DocumentSource source) throws IOException {
+        List<AnnotatedText> sentences = new ArrayList<>();
+        source.forEach(sentences::add);
+        return sentences;
+    }
+
+    @Test
+    public void testCacheIsWrittenAndRead() throws IOException {
+        File file = folder.newFile("document.xlsx");
+        writeDocument(file, "lipay kaayo", "señor, pangit", "naa sa balay", "");
+        assertNull(CorpusCache.open(file.getPath()));
+
+        List<AnnotatedText> fromWorkbook = read(new DocumentSource(file.getPath()));
+        assertEquals(4, fromWorkbook.size());
+        assertTrue(new File(CorpusCache.getCacheFile(file.getPath())).isFile());
+
+        CorpusCache cache = CorpusCache.open(file.getPath());
+        assertNotNull(cache);
+        assertEquals(4, cache.size());
+        assertEquals("señor, pangit", cache.getText(1));
+        assertEquals(Sentiment.NEGATIVE, cache.getCategory(1));
+        assertEquals("", cache.getText(3));
+
+        List<AnnotatedText> fromCache = read(new DocumentSource(file.getPath()));
+        assertEquals(fromWorkbook, fromCache);
+        for (int i = 0; i < fromCache.size(); i++) {
+            assertEquals(fromWorkbook.get(i).getCategory(), fromCache.get(i).getCategory());
+        }
+    }
+
+    @Test
+    public void testChangedWorkbookInvalidatesCache() throws IOException {
+        File file = folder.newFile("document.xlsx");
+        writeDocument(file, "lipay kaayo", "subo");
+        read(new DocumentSource(file.getPath()));
+
+        // Same content with another modified time
+        assertTrue(file.setLastModified(file.lastModified() - 60000));
+        assertNotNull(CorpusCache.open(file.getPath()));
+        // The new modified time is saved once the checksum matches
+        try (RandomAccessFile cacheFile = new RandomAccessFile(CorpusCache.getCacheFile(file.getPath()), "r")) {
+            cacheFile.seek(24);
+            assertEquals(file.lastModified(), cacheFile.readLong());
+        }
+
+        writeDocument(file, "lipay kaayo", "subo kaayo", "balay");
+        assertTrue(file.setLastModified(file.lastModified() - 120000));
+        assertNull(CorpusCache.open(file.getPath()));
+
+        List<AnnotatedText> sentences = read(new DocumentSource(file.getPath()));
+        assertEquals(3, sentences.size());
+        assertEquals(3, CorpusCache.open(file.getPath()).size());
+    }
+
+    @Test
+    public void testDamagedCacheIsIgnored() throws IOException {
+        File file = folder.newFile("document.xlsx");
+        writeDocument(file, "lipay kaayo", "subo");
+        read(new DocumentSource(file.getPath()));
+
+        int[][] headers = { { Integer.MAX_VALUE, 4 }, { 2, Integer.MAX_VALUE }, { -1, 4 } };
+        for (int[] header : headers) {
+            try (RandomAccessFile cacheFile = new RandomAccessFile(CorpusCache.getCacheFile(file.getPath()), "rw")) {
+                cacheFile.seek(8);
+                cacheFile.writeInt(header[0]);
+                cacheFile.writeInt(header[1]);
+            }
+            assertNull(CorpusCache.open(file.getPath()));
+        }
+
+        // The workbook is read again and the cache rewritten
+        assertEquals(2, read(new DocumentSource(file.getPath())).size());
+        assertEquals(2, CorpusCache.open(file.getPath()).size());
+    }
+
+    @Test
+    public void testWithoutCache() throws IOException {
+        File file = folder.newFile("document.xlsx");
+        writeDocument(file, "lipay kaayo");
+        assertEquals(1, read(new DocumentSource(file.getPath(), false)).size());
+        assertFalse(new File(CorpusCache.getCacheFile(file.getPath())).exists());
+    }
+}
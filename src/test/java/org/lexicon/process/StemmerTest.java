@@ -2,10 +2,18 @@ package org.lexicon.process;
 
 import org.junit.Test;
 import org.lexicon.process.dictionary.CebuanoDictionary;
+import org.lexicon.process.stemmer.Affix;
+import org.lexicon.process.stemmer.AffixGroup;
+import org.lexicon.process.stemmer.AffixPattern;
 import org.lexicon.process.stemmer.CebuanoStemmer;
 import org.lexicon.process.stemmer.Derivation;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
 
@@ -47,4 +55,91 @@ public class StemmerTest {
         rootWord = CebuanoStemmer.getRootWord("makatarunganun");
         assertEquals("tarung", rootWord);
     }
+
+    @Test
+    public void testRootCache() {
+        CebuanoStemmer.setCacheSize(10);
+        assertEquals("xyzzy", CebuanoStemmer.getRootWord("xyzzy"));
+        assertEquals("xyzzy", CebuanoStemmer.getRootWord("xyzzy"));
+        assertEquals("tuud", CebuanoStemmer.getRootWord("kamatuoran"));
+        assertEquals(2, CebuanoStemmer.getRootCache().getMissCount());
+        assertEquals(1, CebuanoStemmer.getRootCache().getHitCount());
+        CebuanoStemmer.setCacheSize(CebuanoStemmer.DEFAULT_CACHE_SIZE);
+    }
+
+    @Test
+    public void testFindDerivationsMatchesFullSearch() {
+        String[] roots = { "tuud", "tarung", "kaun", "lakaw", "sulat", "basa", "tawag", "hatag", "gamit", "bisita",
+                "ayu", "init", "uban", "pugus", "dagan" };
+
+        // Literal prefix and suffix of the patterns that have them
+        List<String[]> affixes = new ArrayList<>();
+        Pattern simplePattern = Pattern.compile("\\^([a-z-]*)\\(\\[a-z\\]\\+\\)([a-z-]*)\\$");
+        for (AffixGroup group : CebuanoStemmer.getGroups()) {
+            for (Affix affix : group.affixes) {
+                for (AffixPattern pattern : affix.patterns) {
+                    Matcher matcher = simplePattern.matcher(pattern.compiledPattern);
+                    if (matcher.matches()) {
+                        affixes.add(new String[] { matcher.group(1), matcher.group(2) });
+                    }
+                }
+            }
+        }
+
+        Random random = new Random(42);
+        for (int n = 0; n < 300; n++) {
+            String word = roots[random.nextInt(roots.length)];
+            int count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                String[] affix = affixes.get(random.nextInt(affixes.size()));
+                word = affix[0] + word + affix[1];
+            }
+            assertEquals(word, fullSearch(word).toString(), CebuanoStemmer.findDerivations(word).toString());
+        }
+    }
+
+    @Test
+    public void testFindDerivationsWithInfixes() {
+        String[] words = { "sumulat", "sinulat", "kinaon", "gisulat", "ig-agaw", "gibasahan", "nakatawag",
+                "pinakamaayu", "xyzzy", "kakaun", "tinuud", "gumamit" };
+        for (String word : words) {
+            assertEquals(word, fullSearch(word).toString(), CebuanoStemmer.findDerivations(word).toString());
+        }
+    }
+
+    // CebuanoStemmer.findDerivations as it was written, trying every pattern at every level
+    private static List<Derivation> fullSearch(String word) {
+        return fullSearch(CebuanoNormalizer.normalize(word), new HashSet<>(), 0);
+    }
+
+    private static List<Derivation> fullSearch(String word, HashSet<String> handledRoots, int level) {
+        List<AffixGroup> groups = CebuanoStemmer.getGroups();
+        List<Derivation> derivations = new ArrayList<>();
+        if (groups.size() <= level) {
+            if (!handledRoots.contains(word) && CebuanoDictionary.isRootWord(word)) {
+                derivations.add(new Derivation(word, new ArrayList<>()));
+                handledRoots.add(word);
+            }
+            return derivations;
+        }
+
+        derivations.addAll(fullSearch(word, handledRoots, level + 1));
+        for (AffixGroup group : groups) {
+            for (Affix affix : group.affixes) {
+                for (String root : affix.getRootCandidates(word)) {
+                    if (!handledRoots.contains(root) && CebuanoDictionary.isRootWord(root)) {
+                        Derivation derivation = new Derivation(root, new ArrayList<>());
+                        derivation.affixes.add(affix);
+                        derivations.add(derivation);
+                        handledRoots.add(root);
+                    }
+                    for (Derivation derivation : fullSearch(root, handledRoots, level + 1)) {
+                        derivation.affixes.add(affix);
+                        derivations.add(derivation);
+                    }
+                }
+            }
+        }
+        return derivations;
+    }
 }
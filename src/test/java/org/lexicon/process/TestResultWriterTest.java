@@ -0,0 +1,113 @@
+package org.lexicon.process;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lexicon.Sentiment;
+import org.lexicon.TestResult;
+import org.lexicon.data.AnnotatedText;
+import org.lexicon.util.Metrics;
+
+public class TestResultWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 3 correct predictions out of 4
+    private static TestResult createResult() {
+        Map<AnnotatedText, Sentiment> result = new LinkedHashMap<>();
+        result.put(new AnnotatedText("lipay kaayo", Sentiment.POSITIVE), Sentiment.POSITIVE);
+        result.put(new AnnotatedText("\"pangit\", ingon niya", Sentiment.NEGATIVE), Sentiment.NEGATIVE);
+        result.put(new AnnotatedText("naa sa balay", Sentiment.NEUTRAL), Sentiment.POSITIVE);
+        result.put(new AnnotatedText("subo", Sentiment.NEGATIVE), Sentiment.NEGATIVE);
+        return new TestResult(result);
+    }
+
+    private void testWorkbook(String name) throws Exception {
+        TestResult testResult = createResult();
+        String file = new File(folder.getRoot(), name).getPath();
+        assertEquals(true, DocumentHelper.writeTestResult(testResult, file));
+
+        DataFormatter formatter = new DataFormatter();
+        try (Workbook wb = WorkbookFactory.create(new File(file))) {
+            Sheet sheet = wb.getSheet("Test Result");
+            assertEquals(4, sheet.getLastRowNum());
+            assertEquals("Prediction", formatter.formatCellValue(sheet.getRow(0).getCell(2)));
+            assertEquals("\"pangit\", ingon niya", formatter.formatCellValue(sheet.getRow(2).getCell(0)));
+            assertEquals("NEUTRAL", formatter.formatCellValue(sheet.getRow(3).getCell(1)));
+            assertEquals("POSITIVE", formatter.formatCellValue(sheet.getRow(3).getCell(2)));
+
+            Sheet summary = wb.getSheet("Summary");
+            assertEquals("Accuracy:", formatter.formatCellValue(summary.getRow(0).getCell(0)));
+            assertEquals("0.7500", formatter.formatCellValue(summary.getRow(0).getCell(1)));
+        }
+    }
+
+    @Test
+    public void testWriteXlsx() throws Exception {
+        testWorkbook("result.xlsx");
+    }
+
+    @Test
+    public void testWriteXls() throws Exception {
+        testWorkbook("result.xls");
+    }
+
+    @Test
+    public void testWriteCsv() throws IOException {
+        Metrics.reset();
+        TestResult testResult = createResult();
+        File file = new File(folder.getRoot(), "result.csv");
+        try (TestResultWriter writer = TestResultWriter.open(file.getPath())) {
+            for (Map.Entry<AnnotatedText, Sentiment> entry : testResult.getResultMap().entrySet()) {
+                writer.writeRow(entry.getKey(), entry.getValue());
+            }
+            writer.writeSummary(testResult);
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(5, lines.size());
+        assertEquals("Sentence,Classification,Prediction", lines.get(0));
+        assertEquals("\"\"\"pangit\"\", ingon niya\",NEGATIVE,NEGATIVE", lines.get(2));
+        assertEquals("naa sa balay,NEUTRAL,POSITIVE", lines.get(3));
+
+        List<String> summary = new ArrayList<>(
+                Files.readAllLines(new File(folder.getRoot(), "result-summary.csv").toPath(), StandardCharsets.UTF_8));
+        assertEquals("Accuracy:,0.7500", summary.get(0));
+
+        // One run of the phase, counting the result rows
+        assertEquals(1, Metrics.timer("result.write").getCount());
+        assertEquals(4, Metrics.timer("result.write").getItems());
+    }
+
+    @Test
+    public void testPhaseRecordedOnError() throws IOException {
+        Metrics.reset();
+        File file = new File(folder.getRoot(), "failed.csv");
+        try (TestResultWriter writer = TestResultWriter.open(file.getPath())) {
+            writer.writeRow("lipay kaayo", Sentiment.POSITIVE, Sentiment.POSITIVE);
+            throw new IllegalStateException("Testing failed");
+        }
+        catch (IllegalStateException e) {
+            // Expected
+        }
+
+        assertEquals(1, Metrics.timer("result.write").getCount());
+        assertEquals(1, Metrics.timer("result.write").getItems());
+    }
+}
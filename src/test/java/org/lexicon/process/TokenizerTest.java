@@ -2,7 +2,13 @@ package org.lexicon.process;
 
 import static org.junit.Assert.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
@@ -34,4 +40,54 @@ public class TokenizerTest {
         assertSame(23, tokens.size());
     }
 
+    @Test
+    public void testTokenizeMatchesRegexTokenizer() throws IOException {
+        for (String sentence : loadCorpus()) {
+            assertEquals(sentence, regexTokenize(sentence), Tokenizer.tokenize(sentence));
+        }
+    }
+
+    @Test
+    public void testScanWordsMatchesRegexFilter() throws IOException {
+        for (String sentence : loadCorpus()) {
+            String lowerCased = sentence.toLowerCase();
+            List<String> expected = new ArrayList<>();
+            for (String word : regexTokenize(lowerCased)) {
+                if (word.length() != 0 && word.matches("^[a-zA-Z]*$")) {
+                    expected.add(word);
+                }
+            }
+
+            List<String> words = new ArrayList<>();
+            Tokenizer.scanWords(lowerCased, (text, start, end) -> words.add(text.subSequence(start, end).toString()));
+            assertEquals(sentence, expected, words);
+        }
+    }
+
+    // Tokenizer.tokenize as it was written with regular expressions
+    private static List<String> regexTokenize(String sentence) {
+        String[] words = sentence.replaceAll("-", " ")
+                .replaceAll("\\p{P}", " ")
+                .trim()
+                .split("\\s+");
+        List<String> wordList = new ArrayList<>();
+        Collections.addAll(wordList, words);
+        return wordList;
+    }
+
+    private static List<String> loadCorpus() throws IOException {
+        List<String> sentences = new ArrayList<>(Arrays.asList(
+                "", " ", "-", "...", "\u0001lakaw\u0001", "a\u0001b c", "\u00A0balay\u00A0",
+                "uban\u2014ka", "hi\ud801\udc00there", "\ud800", "x\ud83d\ude00y", "\u201cquoted\u201d",
+                "\u0130stanbul", "KAON", "un\u00F1a", "trailing-", "-leading", "tab\u000Bvertical"));
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                TokenizerTest.class.getResourceAsStream("/corpus/sentences.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sentences.add(line);
+            }
+        }
+        return sentences;
+    }
 }
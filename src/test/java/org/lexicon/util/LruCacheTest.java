@@ -0,0 +1,71 @@
+package org.lexicon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(2, 1);
+        cache.get("balay", String::toUpperCase);
+        cache.get("lakaw", String::toUpperCase);
+        cache.get("balay", key -> "loaded again");
+        cache.get("sakay", String::toUpperCase);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("BALAY", cache.get("balay", key -> "loaded again"));
+        assertEquals("loaded again", cache.get("lakaw", key -> "loaded again"));
+    }
+
+    @Test
+    public void testCachesNull() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertNull(cache.get("hagdanan", key -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        LruCache<Integer, Integer> cache = new LruCache<>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    int key = i % 300;
+                    assertEquals(Integer.valueOf(key * 2), cache.get(key, k -> k * 2));
+                }
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        // Rethrows a failed assertion of any thread
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertTrue(cache.size() <= 100);
+        assertEquals(40000, cache.getHitCount() + cache.getMissCount());
+    }
+}
@@ -0,0 +1,84 @@
+package org.lexicon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MetricsTest {
+
+    @After
+    public void reset() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void testCounterAndPhase() {
+        Metrics.counter("hits").increment();
+        Metrics.counter("hits").add(2);
+        assertEquals(3, Metrics.counter("hits").get());
+
+        try (Metrics.Phase phase = Metrics.startPhase("load")) {
+            phase.addItems(10);
+        }
+        try (Metrics.Phase phase = Metrics.startPhase("load")) {
+            phase.addItems(5);
+        }
+        assertEquals(2, Metrics.timer("load").getCount());
+        assertEquals(15, Metrics.timer("load").getItems());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        Metrics.Histogram histogram = Metrics.histogram("latency");
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(500, histogram.getPercentile(50), 500 / 16.0);
+        assertEquals(990, histogram.getPercentile(99), 990 / 16.0);
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testBucketsAreOrdered() {
+        int previous = -1;
+        for (long value = 0; value < 100000; value++) {
+            int bucket = Metrics.Histogram.getBucket(value);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            previous = bucket;
+        }
+        assertTrue(Metrics.Histogram.getBucket(Long.MAX_VALUE) < 960);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReport() {
+        Metrics.counter("b").increment();
+        Metrics.counter("a").increment();
+        Metrics.histogram("h").record(7);
+
+        Map<String, Object> counters = (Map<String, Object>) Metrics.getReport().get("counters");
+        assertEquals("[a, b]", counters.keySet().toString());
+        assertTrue(Metrics.toJson().contains("\"p50\": 7"));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        assertTrue(Metrics.registerMBean());
+        assertTrue(Metrics.registerMBean());
+        Metrics.counter("hits").increment();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String report = (String) server.getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Report");
+        assertTrue(report.contains("\"hits\": 1"));
+    }
+}
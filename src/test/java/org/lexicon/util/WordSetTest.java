@@ -0,0 +1,70 @@
+package org.lexicon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class WordSetTest {
+
+    private static final Set<String> WORDS = new HashSet<>(Arrays.asList("lipay", "subo", "balay", "niño", "𝒜bc", ""));
+
+    @Test
+    public void testContains() {
+        WordSet set = WordSet.of(WORDS);
+        assertEquals(WORDS.size(), set.size());
+        for (String word : WORDS) {
+            assertTrue(word, set.contains(word));
+        }
+        assertFalse(set.contains("lipa"));
+        assertFalse(set.contains("lipays"));
+        assertFalse(set.contains("nino"));
+        assertFalse(set.contains("\uD835"));
+    }
+
+    @Test
+    public void testContainsSlice() {
+        WordSet set = WordSet.of(WORDS);
+        String text = "malipay ang balay";
+        assertTrue(set.contains(text, 2, 7));
+        assertTrue(set.contains(text, 12, 17));
+        assertFalse(set.contains(text, 0, 7));
+        assertTrue(set.contains(text.toCharArray(), 12, 17));
+        assertTrue(set.contains(new StringBuilder("subo kaayo"), 0, 4));
+    }
+
+    @Test
+    public void testGet() {
+        WordSet set = WordSet.of(Arrays.asList("lipay", "niño", "lipay", "𝒜bc"));
+        assertEquals(3, set.size());
+        assertEquals("lipay", set.get(0));
+        assertEquals("niño", set.get(1));
+        assertEquals("𝒜bc", set.get(2));
+    }
+
+    @Test
+    public void testReadFromBytes() {
+        Set<String> words = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            words.add("w" + i);
+        }
+        byte[] bytes = WordSet.toBytes(words);
+        ByteBuffer buffer = ByteBuffer.allocate(100 + bytes.length);
+        buffer.position(100);
+        buffer.put(bytes);
+        buffer.position(100);
+
+        WordSet set = WordSet.read(buffer);
+        assertEquals(300, set.size());
+        assertTrue(set.contains("w299"));
+        assertFalse(set.contains("w300"));
+        assertNull(WordSet.read(ByteBuffer.allocate(16)));
+    }
+}